@@ -0,0 +1,97 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 서블릿 스레드보다 많은 동시 요청에서 동기/비동기(app.async.enabled) 처리량 비교 - 내장 톰캣에 HTTP 로 요청
+ * 톰캣 스레드 16개, 커넥션 풀 8개
+ * members : /members/{id}, /members?page= 를 번갈아 요청하는 스레드 48개
+ * hello : DB 를 쓰지 않는 /hello 를 요청하는 스레드 16개
+ * 동기 모드에서는 서블릿 스레드가 모두 커넥션을 기다리느라 /hello 도 같이 밀림
+ * 비동기 모드에서는 조회는 커넥션 풀 크기만큼만 실행되고 서블릿 스레드는 다른 요청을 처리
+ * 대기열이 차서 거절된 요청(503)은 rejected, 그 외 200 이 아닌 응답은 failed 로 따로 집계
+ *
+ * ./gradlew jmh -Pjmh.includes=AsyncEndpointBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AsyncEndpointBenchmark {
+
+    @Param({"false", "true"})
+    boolean async;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startServer("asyncEndpointBenchmark" + async,
+                "server.port=0",
+                "server.tomcat.threads.max=16",
+                "server.tomcat.threads.min-spare=16",
+                "spring.datasource.hikari.maximum-pool-size=8",
+                "spring.datasource.hikari.minimum-idle=8",
+                "app.async.enabled=" + async,
+                "app.async.queue-capacity=64");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(48)
+    public int members(Errors errors) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String path = random.nextBoolean()
+                ? "/members/" + (random.nextInt(100) + 1)
+                : "/members?page=" + (random.nextInt(20) + 1);
+        int status = get(path);
+        if (status == 503) {
+            errors.rejected++;
+        } else if (status != 200) {
+            errors.failed++;
+        }
+        return status;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(16)
+    public int hello() throws IOException, InterruptedException {
+        return get("/hello");
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Errors {
+        public long rejected;
+        public long failed;
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
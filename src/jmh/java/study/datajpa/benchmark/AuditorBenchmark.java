@@ -0,0 +1,56 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.audit.BatchJobAuditorResolver;
+import study.datajpa.audit.HeaderAuditorResolver;
+import study.datajpa.audit.UnitOfWorkAuditorAware;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 엔티티 저장마다 호출되는 AuditorAware 비교 (스프링 컨텍스트 없이)
+ * 트랜잭션 하나에서 entitiesPerTransaction 개의 엔티티를 저장하는 상황 - 결과는 엔티티 하나당 시간
+ * uuidPerEntity : 기존 방식 (매번 UUID 생성)
+ * unitOfWork : 트랜잭션마다 한번만 찾음 (resolver 가 모두 실패해서 UUID 를 만드는 최악의 경우)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuditorBenchmark {
+
+    private static final int ENTITIES_PER_TRANSACTION = 1000;
+
+    private final AuditorAware<String> uuidProvider = () -> Optional.of(UUID.randomUUID().toString());
+    private final AuditorAware<String> unitOfWorkProvider = new UnitOfWorkAuditorAware(
+            List.of(new BatchJobAuditorResolver(), new HeaderAuditorResolver("X-User-Id")));
+
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES_PER_TRANSACTION)
+    public void uuidPerEntity(Blackhole blackhole) {
+        inTransaction(uuidProvider, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES_PER_TRANSACTION)
+    public void unitOfWork(Blackhole blackhole) {
+        inTransaction(unitOfWorkProvider, blackhole);
+    }
+
+    //트랜잭션 매니저 대신 동기화만 시작/종료
+    private static void inTransaction(AuditorAware<String> provider, Blackhole blackhole) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (int i = 0; i < ENTITIES_PER_TRANSACTION; i++) {
+                blackhole.consume(provider.getCurrentAuditor());
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
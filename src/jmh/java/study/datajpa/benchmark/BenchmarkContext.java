@@ -0,0 +1,48 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 - 메모리 H2 DB 를 사용하고 SQL 로깅은 끔
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String database, String... properties) {
+        return start(WebApplicationType.NONE, database, properties);
+    }
+
+    //내장 톰캣까지 띄움 - 포트는 server.port 또는 local.server.port 로 확인
+    static ConfigurableApplicationContext startServer(String database, String... properties) {
+        return start(WebApplicationType.SERVLET, database, properties);
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String database, String... properties) {
+        //application.yml 보다 우선하도록 커맨드라인 인자로 전달
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--decorator.datasource.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(type)
+                .run(args.toArray(new String[0]));
+    }
+}
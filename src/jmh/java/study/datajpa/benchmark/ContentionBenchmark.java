@@ -0,0 +1,79 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.MemberService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 스레드가 적은 수의 회원(hotRows)을 동시에 수정할 때 처리량 비교
+ * optimistic : @Version + 충돌 시 재시도 (MemberService.addAge)
+ * pessimistic : select ... for update (MemberService.addAgeWithLock)
+ * hotRows 가 적을수록 충돌이 많음 - 재시도 횟수(5번)를 넘긴 실패는 failures 로 집계
+ *
+ * ./gradlew jmh -Pjmh.includes=ContentionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class ContentionBenchmark {
+
+    @Param({"1", "16", "256"})
+    int hotRows;
+
+    private ConfigurableApplicationContext context;
+    private MemberService memberService;
+    private final List<Long> ids = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("contentionBenchmark" + hotRows,
+                "spring.datasource.hikari.maximum-pool-size=16",
+                "app.lock.timeout=30s",
+                "logging.level.org.hibernate.engine.jdbc=off"); //충돌할 때마다 남는 StaleStateException 로그
+        memberService = context.getBean(MemberService.class);
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        for (int i = 0; i < hotRows; i++) {
+            ids.add(memberRepository.save(new Member("contention" + i, 0)).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //재시도를 모두 실패한 경우는 처리량에서 빼고 failures 로 따로 집계
+    @Benchmark
+    public Member optimistic(Failures failures) {
+        try {
+            return memberService.addAge(randomId(), 1);
+        } catch (OptimisticLockingFailureException e) {
+            failures.failures++;
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Member pessimistic() {
+        return memberService.addAgeWithLock(randomId(), 1);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Failures {
+        public long failures;
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,68 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 전체 회원 집계 : findAll() 을 한 스레드로 읽기 vs scanAll 로 id 범위를 나눠서 maxConnections 개의 커넥션으로 병렬 조회
+ *
+ * ./gradlew jmh -Pjmh.includes=PartitionedScanBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PartitionedScanBenchmark {
+
+    @Param({"100000"})
+    int members;
+
+    @Param({"1", "2", "4", "8"})
+    int maxConnections;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("partitionedScanBenchmark" + maxConnections,
+                "spring.datasource.hikari.maximum-pool-size=10",
+                "app.scan.max-connections=" + maxConnections,
+                "app.index-advisor.enabled=false");
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        List<Member> list = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            list.add(new Member("scan" + i, i % 100));
+        }
+        memberRepository.saveAllBatched(list, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LongSummaryStatistics findAll() {
+        return readOnlyTransaction.execute(status -> memberRepository.findAll().stream()
+                .collect(Collectors.summarizingLong(Member::getAge)));
+    }
+
+    @Benchmark
+    public LongSummaryStatistics scanAll() {
+        return memberRepository.scanAll(Collectors.summarizingLong(Member::getAge));
+    }
+}
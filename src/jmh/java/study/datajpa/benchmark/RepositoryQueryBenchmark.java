@@ -0,0 +1,135 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberRepository 의 조회 방식별 성능 비교
+ * 단건 조회 : 메서드 이름 쿼리 / @Query JPQL / NamedQuery / 인터페이스 프로젝션 / 네이티브 쿼리
+ * 팀과 함께 조회 : fetch join / @EntityGraph / 지연 로딩(@BatchSize, 2차 캐시) / DTO 조회
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RepositoryQueryBenchmark {
+
+    @Param({"1000"})
+    int members;
+
+    @Param({"10"})
+    int teams;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("queryBenchmark");
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+
+        List<Team> saved = new ArrayList<>();
+        for (int i = 0; i < teams; i++) {
+            saved.add(teamRepository.save(new Team("team" + i)));
+        }
+        List<Member> list = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            list.add(new Member(username(i), i % 100, saved.get(i % teams)));
+        }
+        memberRepository.saveAllBatched(list, 500);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private String randomUsername() {
+        return username(ThreadLocalRandom.current().nextInt(members));
+    }
+
+    private static String username(int i) {
+        return "bench" + i;
+    }
+
+    //=== 단건 조회 ===
+
+    @Benchmark
+    public Object derivedQuery() {
+        return memberRepository.findByUsernameAndAgeGreaterThan(randomUsername(), -1);
+    }
+
+    @Benchmark
+    public Object jpqlQuery() {
+        String username = randomUsername();
+        int age = Integer.parseInt(username.substring("bench".length())) % 100;
+        return memberRepository.findUser(username, age);
+    }
+
+    @Benchmark
+    public Object namedQuery() {
+        return memberRepository.findByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public Object interfaceProjection() {
+        return memberRepository.findProjectionsByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public Object nativeQuery() {
+        return memberRepository.findByNativeQuery(randomUsername());
+    }
+
+    //=== 팀과 함께 전체 조회 ===
+
+    @Benchmark
+    public void fetchJoin(Blackhole bh) {
+        for (Member member : memberRepository.findMemberFetchJoin()) {
+            bh.consume(member.getTeam() == null ? null : member.getTeam().getName());
+        }
+    }
+
+    @Benchmark
+    public void entityGraph(Blackhole bh) {
+        for (Member member : memberRepository.findMemberEntityGraph()) {
+            bh.consume(member.getTeam() == null ? null : member.getTeam().getName());
+        }
+    }
+
+    //팀 프록시를 초기화할 때 Team 의 @BatchSize 만큼 in 절로 같이 조회 (2차 캐시에 있으면 캐시에서)
+    @Benchmark
+    public void lazyLoading(Blackhole bh) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (Member member : memberRepository.findAll()) {
+                bh.consume(member.getTeam() == null ? null : member.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public Object dtoProjection() {
+        return memberRepository.findMemberDto();
+    }
+
+    @Benchmark
+    public Object nativeProjectionPage() {
+        return memberRepository.findNativeProjection(PageRequest.of(0, 20)).getContent();
+    }
+}
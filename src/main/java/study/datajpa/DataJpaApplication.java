@@ -1,13 +1,15 @@
 package study.datajpa;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.audit.AuditorResolver;
+import study.datajpa.audit.UnitOfWorkAuditorAware;
 
-import java.util.Optional;
-import java.util.UUID;
+import java.util.stream.Collectors;
 
 @EnableJpaAuditing
 @SpringBootApplication
@@ -17,9 +19,10 @@ public class DataJpaApplication {
 		SpringApplication.run(DataJpaApplication.class, args);
 	}
 
+	//수행자는 트랜잭션(또는 요청)마다 한번만 찾음 - 배치 작업 이름 > 요청 헤더 > UUID 순
 	@Bean
-	public AuditorAware<String> auditorProvider() {
-		return () -> Optional.of(UUID.randomUUID().toString());
+	public AuditorAware<String> auditorProvider(ObjectProvider<AuditorResolver> resolvers) {
+		return new UnitOfWorkAuditorAware(resolvers.orderedStream().collect(Collectors.toList()));
 	}
 
 }
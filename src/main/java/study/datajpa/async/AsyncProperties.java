@@ -0,0 +1,27 @@
+package study.datajpa.async;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 회원 조회 비동기 실행 설정 (app.async)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.async")
+public class AsyncProperties {
+
+    private boolean enabled = false;
+
+    //동시에 실행할 조회 수 - 0 이면 커넥션 풀 크기(spring.datasource.hikari.maximum-pool-size)
+    private int threads = 0;
+
+    //실행을 기다릴 수 있는 조회 수 - 넘으면 503
+    private int queueCapacity = 100;
+
+    //JDK 21 이상에서만 사용 가능
+    private boolean virtualThreads = false;
+}
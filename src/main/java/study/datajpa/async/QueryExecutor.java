@@ -0,0 +1,85 @@
+package study.datajpa.async;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 컨트롤러의 조회를 서블릿 스레드 밖에서 실행 (app.async.enabled=true)
+ * 1. 조회 결과를 CompletableFuture 로 반환 -> 스프링 MVC 비동기 처리로 서블릿 스레드는 바로 반환됨
+ * 2. 동시에 실행하는 조회 수는 커넥션 풀 크기로 제한 - 더 실행해봐야 커넥션을 기다리기만 함
+ * 3. 대기열(queueCapacity)까지 차면 RejectedExecutionException 으로 바로 거절 (컨트롤러에서 503)
+ * 비활성화 상태면 호출한 스레드에서 실행하고 완료된 future 를 반환
+ * 실행 스레드가 다르므로 요청 스레드의 ThreadLocal(StatementRecorder 등)은 조회에 적용되지 않음
+ */
+@Component
+public class QueryExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor; //비활성화 상태면 null
+
+    public QueryExecutor(AsyncProperties properties,
+                         @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        if (!properties.isEnabled()) {
+            this.executor = null;
+            return;
+        }
+        int threads = properties.getThreads() > 0 ? properties.getThreads() : connectionPoolSize;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                properties.isVirtualThreads() ? virtualThreadFactory() : platformThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    /**
+     * @throws RejectedExecutionException 실행 중인 조회와 대기열이 모두 찬 경우
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(query.get());
+        }
+        return CompletableFuture.supplyAsync(query, executor);
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory() {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "query-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    //Thread.ofVirtual().name("query-vt-", 0).factory() - 컴파일 대상이 JDK 11 이므로 리플렉션으로 호출
+    //가상 스레드도 풀의 스레드 수만큼만 만들어짐 (동시 실행 수 제한은 커넥션 풀 기준 그대로)
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "query-vt-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads require JDK 21 or later: app.async.virtual-threads", e);
+        }
+    }
+}
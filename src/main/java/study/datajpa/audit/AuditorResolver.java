@@ -0,0 +1,14 @@
+package study.datajpa.audit;
+
+import java.util.Optional;
+
+/**
+ * 현재 작업의 수행자(createdBy, lastModifiedBy)를 찾는 방법
+ * 빈으로 등록하면 @Order 순서대로 시도해서 처음 찾은 값을 사용
+ * (예: 스프링 시큐리티를 추가하면 SecurityContextHolder 에서 사용자 이름을 찾는 구현을 등록)
+ */
+@FunctionalInterface
+public interface AuditorResolver {
+
+    Optional<String> resolve();
+}
@@ -0,0 +1,43 @@
+package study.datajpa.audit;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * 배치 작업의 이름을 수행자로 사용
+ *
+ * try (BatchJobAuditorResolver.Binding binding = BatchJobAuditorResolver.bind("nightly-member-job")) {
+ *     ...
+ * }
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BatchJobAuditorResolver implements AuditorResolver {
+
+    private static final ThreadLocal<String> currentJob = new ThreadLocal<>();
+
+    public static Binding bind(String jobName) {
+        String previous = currentJob.get();
+        currentJob.set(jobName);
+        return () -> {
+            if (previous == null) {
+                currentJob.remove();
+            } else {
+                currentJob.set(previous);
+            }
+        };
+    }
+
+    @Override
+    public Optional<String> resolve() {
+        return Optional.ofNullable(currentJob.get());
+    }
+
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
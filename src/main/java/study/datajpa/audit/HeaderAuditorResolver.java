@@ -0,0 +1,36 @@
+package study.datajpa.audit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+
+/**
+ * HTTP 요청 헤더(app.audit.header, 기본 X-User-Id)의 값을 수행자로 사용
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class HeaderAuditorResolver implements AuditorResolver {
+
+    private final String header;
+
+    public HeaderAuditorResolver(@Value("${app.audit.header:X-User-Id}") String header) {
+        this.header = header;
+    }
+
+    @Override
+    public Optional<String> resolve() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return Optional.empty();
+        }
+        String value = ((ServletRequestAttributes) attributes).getRequest().getHeader(header);
+        return StringUtils.hasText(value) ? Optional.of(value) : Optional.empty();
+    }
+}
@@ -0,0 +1,71 @@
+package study.datajpa.audit;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 수행자를 작업 단위(트랜잭션, 없으면 HTTP 요청)마다 한번만 찾고 재사용
+ * 엔티티를 저장할 때마다 UUID 를 만들지 않으므로 대량 저장 시 부담이 적음
+ * resolver 가 모두 값을 찾지 못하면 작업 단위마다 UUID 를 하나 생성
+ */
+public class UnitOfWorkAuditorAware implements AuditorAware<String> {
+
+    private static final String REQUEST_ATTRIBUTE = UnitOfWorkAuditorAware.class.getName() + ".AUDITOR";
+
+    private final List<AuditorResolver> resolvers;
+
+    public UnitOfWorkAuditorAware(List<AuditorResolver> resolvers) {
+        this.resolvers = List.copyOf(resolvers);
+    }
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            //트랜잭션 동기화에 보관 - REQUIRES_NEW 로 새 트랜잭션이 시작되면 같이 보류되므로 트랜잭션마다 따로 찾음
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                if (synchronization instanceof AuditorHolder) {
+                    return Optional.of(((AuditorHolder) synchronization).auditor);
+                }
+            }
+            String auditor = resolve();
+            TransactionSynchronizationManager.registerSynchronization(new AuditorHolder(auditor));
+            return Optional.of(auditor);
+        }
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            String auditor = (String) request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (auditor == null) {
+                auditor = resolve();
+                request.setAttribute(REQUEST_ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+            }
+            return Optional.of(auditor);
+        }
+        return Optional.of(resolve()); //작업 단위가 없으면 매번 찾음
+    }
+
+    private String resolve() {
+        for (AuditorResolver resolver : resolvers) {
+            Optional<String> auditor = resolver.resolve();
+            if (auditor.isPresent()) {
+                return auditor.get();
+            }
+        }
+        return UUID.randomUUID().toString();
+    }
+
+    private static final class AuditorHolder implements TransactionSynchronization {
+        private final String auditor;
+
+        private AuditorHolder(String auditor) {
+            this.auditor = auditor;
+        }
+    }
+}
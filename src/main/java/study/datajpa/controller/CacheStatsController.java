@@ -0,0 +1,48 @@
+package study.datajpa.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.CacheStatsDto;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 2차 캐시 / 쿼리 캐시 region 별 hit, miss 조회 - region 크기를 정할때 사용
+ * 쿼리 계획 캐시의 hit, miss 도 같이 조회
+ */
+@RestController
+public class CacheStatsController {
+
+    private final Statistics statistics;
+
+    public CacheStatsController(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @GetMapping("/admin/cache-stats")
+    public List<CacheStatsDto> cacheStats() {
+        List<CacheStatsDto> result = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats != null) {
+                //JCache 는 region 크기를 제공하지 않음 (NO_EXTENDED_STAT_SUPPORT_RETURN) -> -1
+                long elementCount = Math.max(stats.getElementCountInMemory(), -1);
+                result.add(new CacheStatsDto(region, stats.getHitCount(), stats.getMissCount(),
+                        stats.getPutCount(), elementCount));
+            }
+        }
+        //쿼리 캐시 전체 합계
+        result.add(new CacheStatsDto("query-cache", statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount(), -1));
+        //HQL/JPQL 문자열 -> 컴파일된 쿼리 계획 캐시 (miss 가 계속 늘어나면 매번 다른 JPQL 이 만들어지는 중)
+        //put 횟수는 제공하지 않음 -> -1
+        result.add(new CacheStatsDto("query-plan-cache", statistics.getQueryPlanCacheHitCount(),
+                statistics.getQueryPlanCacheMissCount(), -1, -1));
+        return result;
+    }
+}
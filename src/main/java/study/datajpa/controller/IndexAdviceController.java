@@ -0,0 +1,24 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.schema.IndexAdvisor;
+import study.datajpa.schema.IndexReport;
+
+/**
+ * 없는 인덱스 제안 - 시작 이후 실행된 JPQL 까지 포함해서 다시 분석
+ * explain=true 면 EXPLAIN 결과 전체 스캔인 쿼리도 포함
+ */
+@RestController
+@RequiredArgsConstructor
+public class IndexAdviceController {
+
+    private final IndexAdvisor indexAdvisor;
+
+    @GetMapping("/admin/index-advice")
+    public IndexReport indexAdvice(@RequestParam(value = "explain", defaultValue = "false") boolean explain) {
+        return indexAdvisor.advise(explain);
+    }
+}
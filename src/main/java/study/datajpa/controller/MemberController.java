@@ -4,42 +4,134 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.async.QueryExecutor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.KeysetCursor;
+import study.datajpa.repository.KeysetWindow;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.MemberSearchCondition;
+import study.datajpa.repository.UnsupportedSortException;
+import study.datajpa.repository.UsernameCache;
+import study.datajpa.service.MemberExportService;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_WINDOW_SIZE = 2000; //spring.data.web.pageable.max-page-size 와 동일
+
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final QueryExecutor queryExecutor;
+    private final UsernameCache usernameCache;
 
+    //app.async.enabled=true 면 조회가 끝날 때까지 서블릿 스레드를 붙잡지 않음
+    //username 만 조회해서 짧게 캐시 (UsernameCache) - 캐시에 있으면 조회 스레드를 거치지 않음
+    //없는 id 는 예외 없이 404 (잘못된 id 요청은 조회보다 예외 스택 트레이스를 만드는 비용이 더 큼)
     @GetMapping("/members/{id}")
-    public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(id).get();
-        return member.getUsername();
+    public CompletableFuture<ResponseEntity<String>> findMember(@PathVariable("id") Long id) {
+        Optional<String> cached = usernameCache.getIfPresent(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(usernameResponse(cached));
+        }
+        return queryExecutor.submit(() -> usernameResponse(usernameCache.get(id, memberRepository::findUsernameById)));
     }
 
+    //도메인 클래스 컨버터(@PathVariable Member)는 요청마다 엔티티 전체를 findById 로 조회 -> /members/{id} 와 같은 방식으로 조회
     @GetMapping("/members2/{id}")
-    public String findMember2(@PathVariable("id") Member member) {
-        return member.getUsername();
+    public CompletableFuture<ResponseEntity<String>> findMember2(@PathVariable("id") Long id) {
+        return findMember(id);
     }
 
     @GetMapping("/members")
-    public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable) {
-        Page<Member> page = memberRepository.findAll(pageable);
-        return page.map(member -> new MemberDto(member.getId(), member.getUsername(), null));
+    public CompletableFuture<Page<MemberDto>> list(@PageableDefault(size = 5) Pageable pageable) {
+        return queryExecutor.submit(() -> memberRepository.findMemberDtoPage(pageable)); //팀 이름까지 쿼리 한번으로 조회
+    }
+
+    //검색 화면 : /members/search?teamName=teamA&ageGoe=20&sort=age,desc
+    @GetMapping("/members/search")
+    public CompletableFuture<Page<MemberDto>> search(MemberSearchCondition condition,
+                                                     @PageableDefault(size = 5) Pageable pageable) {
+        return queryExecutor.submit(() -> memberRepository.search(condition, pageable));
+    }
+
+    //키셋 페이징 : /members?cursor= 로 시작해서 응답의 nextCursor 를 다음 요청에 전달
+    //page 파라미터와 달리 뒤쪽 페이지로 가도 offset 만큼 읽고 버리는 비용이 없음
+    @GetMapping(value = "/members", params = "cursor")
+    public KeysetWindow<MemberDto> listByCursor(@RequestParam("cursor") String cursor,
+                                                @RequestParam(value = "size", defaultValue = "5") int size) {
+        int limit = Math.max(1, Math.min(size, MAX_WINDOW_SIZE));
+        KeysetWindow<Member> window = memberRepository.findWindow(decodeCursor(cursor), limit);
+        return window.map(member -> new MemberDto(member.getId(), member.getUsername(), null));
+    }
+
+    //전체 회원 내보내기 - 조회하는 대로 응답에 써서 회원 수와 상관없이 메모리 사용량이 일정
+    @GetMapping("/members/export")
+    public void export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        MemberExportService.Format exportFormat;
+        try {
+            exportFormat = MemberExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported format: " + format);
+        }
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.export(exportFormat, response.getWriter());
+    }
+
+    //조회 대기열이 가득 참 - 서블릿 스레드를 늘리는 대신 잠시 후 다시 요청하도록
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> rejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    //목록, 검색에서 지원하지 않는 정렬 - 내부 메시지 대신 정해진 메시지로 응답
+    @ExceptionHandler(UnsupportedSortException.class)
+    public ResponseEntity<String> unsupportedSort() {
+        return ResponseEntity.badRequest()
+                .body("unsupported sort - use id, username, age or teamName with asc/desc (ignorecase and nulls ordering are not supported)");
+    }
+
+    private static ResponseEntity<String> usernameResponse(Optional<String> username) {
+        return username.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private KeysetCursor decodeCursor(String cursor) {
+        try {
+            return KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @PostConstruct
     public void init() {
+        List<Member> members = new ArrayList<>();
         for(int i=0 ; i<100 ; i++) {
-            memberRepository.save(new Member("user" + i, i));
+            members.add(new Member("user" + i, i));
         }
+        memberRepository.saveAllBatched(members, 100);
     }
 }
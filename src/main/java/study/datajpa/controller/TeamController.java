@@ -0,0 +1,30 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.service.TeamStatsService;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsService teamStatsService;
+
+    //팀별 회원 수, 평균/최소/최대 나이, 나이 구간별 회원 수 - /teams/stats?bucketWidth=10
+    //요약 테이블에서 계산, exact=true 면 member 를 직접 group by
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDto> stats(@RequestParam(value = "bucketWidth", defaultValue = "10") int bucketWidth,
+                                    @RequestParam(value = "exact", defaultValue = "false") boolean exact) {
+        if (bucketWidth <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bucketWidth must be positive: " + bucketWidth);
+        }
+        return exact ? teamStatsService.teamStatsExact(bucketWidth) : teamStatsService.teamStats(bucketWidth);
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.repository.TeamSummary;
+import study.datajpa.repository.TeamSummaryMismatch;
+
+import java.util.List;
+
+/**
+ * 팀 요약 테이블(team_age_summary) 점검
+ * check : member 집계와 다른 (팀, 나이) 목록 (비어 있으면 일치)
+ * rebuild : member 에서 전체를 다시 집계 - 배포 직후 또는 check 가 어긋날 때
+ */
+@RestController
+@RequiredArgsConstructor
+public class TeamSummaryController {
+
+    private final TeamSummary teamSummary;
+
+    @GetMapping("/admin/team-summary/check")
+    public List<TeamSummaryMismatch> check() {
+        return teamSummary.check();
+    }
+
+    @PostMapping("/admin/team-summary/rebuild")
+    public int rebuild() {
+        return teamSummary.rebuild(); //다시 만든 row 수
+    }
+}
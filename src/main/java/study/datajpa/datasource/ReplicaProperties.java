@@ -0,0 +1,36 @@
+package study.datajpa.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * app.datasource.replicas[n].url 처럼 읽기 전용 복제본 목록을 설정
+ * primary 는 spring.datasource 설정을 그대로 사용
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.datasource")
+public class ReplicaProperties {
+
+    private Selection selection = Selection.ROUND_ROBIN;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_LOADED //사용중인 커넥션이 가장 적은 복제본
+    }
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,148 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Transactional(readOnly = true) 이면 복제본, 아니면 primary 로 연결
+ * 복제본에 연결할 수 없으면 잠시 제외하고 primary 를 사용
+ *
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 설정되지 않았으므로
+ * LazyConnectionDataSourceProxy 로 첫 SQL 실행 시점까지 실제 커넥션 획득을 미룬다
+ * (p6spy 처럼 getConnection() 직후 커넥션을 건드리는 경우는 ReplicaRoutingTransactionManager 가 미리 알려준다)
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final long RETRY_AFTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final HikariDataSource primary;
+    private final List<ReplicaTarget> replicas = new ArrayList<>();
+    private final ReplicaProperties.Selection selection;
+    private final AtomicInteger next = new AtomicInteger();
+
+    //트랜잭션 시작(doBegin) 중의 readOnly 여부 - 동기화 정보가 등록되기 전에 커넥션을 가져가는 경우용
+    private static final ThreadLocal<Boolean> beginningReadOnly = new ThreadLocal<>();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    ReplicaProperties.Selection selection) {
+        this.primary = primary;
+        this.selection = selection;
+        for (HikariDataSource replica : replicas) {
+            this.replicas.add(new ReplicaTarget(replica));
+        }
+        setTargetDataSource(new Router());
+        //기본값을 모르면 트랜잭션 시작 시 getAutoCommit() 에서 커넥션을 바로 가져와 버림
+        setDefaultAutoCommit(primary.isAutoCommit());
+        afterPropertiesSet();
+    }
+
+    static void setBeginningReadOnly(Boolean readOnly) {
+        if (readOnly == null) {
+            beginningReadOnly.remove();
+        } else {
+            beginningReadOnly.set(readOnly);
+        }
+    }
+
+    private static boolean isReadOnly() {
+        Boolean beginning = beginningReadOnly.get();
+        return beginning != null ? beginning : TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(r -> r.dataSource.close());
+        primary.close();
+    }
+
+    private class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return route(HikariDataSource::getConnection);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return route(target -> target.getConnection(username, password)); //지원 여부는 대상 DataSource 가 결정
+        }
+
+        private Connection route(ConnectionOpener opener) throws SQLException {
+            if (!isReadOnly()) {
+                return opener.open(primary);
+            }
+            ReplicaTarget replica = select();
+            if (replica == null) {
+                return opener.open(primary);
+            }
+            try {
+                return opener.open(replica.dataSource);
+            } catch (SQLException | RuntimeException e) { //풀 초기화 실패는 RuntimeException
+                replica.downUntil = System.nanoTime() + RETRY_AFTER_NANOS;
+                log.warn("replica {} unavailable, falling back to primary: {}", replica.dataSource.getJdbcUrl(), e.getMessage());
+                return opener.open(primary);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(HikariDataSource target) throws SQLException;
+    }
+
+    private ReplicaTarget select() {
+        long now = System.nanoTime();
+        int size = replicas.size();
+        if (selection == ReplicaProperties.Selection.LEAST_LOADED) {
+            ReplicaTarget best = null;
+            int bestActive = Integer.MAX_VALUE;
+            for (ReplicaTarget replica : replicas) {
+                int active = replica.activeConnections();
+                if (replica.isUp(now) && active < bestActive) {
+                    best = replica;
+                    bestActive = active;
+                }
+            }
+            return best;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            ReplicaTarget replica = replicas.get((start + i) % size);
+            if (replica.isUp(now)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static final class ReplicaTarget {
+        private final HikariDataSource dataSource;
+        private volatile long downUntil;
+
+        private ReplicaTarget(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private boolean isUp(long now) {
+            return now - downUntil >= 0;
+        }
+
+        private int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean(); //첫 연결 전에는 null
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+    }
+}
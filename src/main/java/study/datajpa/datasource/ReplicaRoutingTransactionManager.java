@@ -0,0 +1,23 @@
+package study.datajpa.datasource;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * 트랜잭션 시작 중에 커넥션을 가져가도 readOnly 여부대로 라우팅되도록
+ * doBegin 동안 ReplicaRoutingDataSource 에 readOnly 여부를 알려준다
+ */
+public class ReplicaRoutingTransactionManager extends JpaTransactionManager {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        ReplicaRoutingDataSource.setBeginningReadOnly(definition.isReadOnly());
+        try {
+            super.doBegin(transaction, definition);
+        } finally {
+            ReplicaRoutingDataSource.setBeginningReadOnly(null);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class TeamStatsDto {
+
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private Double avgAge;
+    private Integer minAge;
+    private Integer maxAge;
+    private Map<Integer, Long> ageHistogram = new LinkedHashMap<>(); //구간 시작 나이 -> 회원 수 (회원이 있는 구간만)
+
+    public TeamStatsDto(Long teamId, String teamName, long memberCount, Double avgAge, Integer minAge, Integer maxAge) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.avgAge = avgAge;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+}
@@ -3,6 +3,7 @@ package study.datajpa.entity;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -23,6 +24,9 @@ public class Item implements Persistable<String> {
     @CreatedDate
     private LocalDateTime createdDate;
 
+    @LastModifiedDate
+    private LocalDateTime lastModifiedDate; //upsert 로 이미 있는 id 를 다시 저장하면 갱신
+
     public Item(String id) {
         this.id = id;
     }
@@ -1,8 +1,11 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
+import javax.persistence.Cacheable;
 
 @Entity
 @Getter
@@ -11,18 +14,38 @@ import javax.persistence.*;
 @ToString(of = {"id", "username", "age"})
 @NamedQuery(
         name="Member.findByUsername",
-        query="select m from Member m where m.username = :username"
+        query="select m from Member m where m.username = :username",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true") //쿼리 캐시
 )
+@Cacheable //쿼리 캐시는 id 만 저장하므로 엔티티도 캐시해야 id 별 조회가 발생하지 않음
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
+@Table(indexes = {
+        @Index(name = "idx_member_username_age", columnList = "username, age"), //findUser, findByUsernameAndAgeGreaterThan, findByUsername
+        @Index(name = "idx_member_age_username", columnList = "age, username") //findByAge, findByPage(order by username desc), bulkAgePlus
+})
+//UsernameCacheListener : 수정되면 /members/{id} 의 username 캐시 무효화
+//TeamSummaryListener : 팀, 나이별 회원 수 요약 테이블 증감 (BaseEntity 의 AuditingEntityListener 다음에 실행)
+@EntityListeners({UsernameCacheListener.class, TeamSummaryListener.class})
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
+@SequenceGenerator(
+        name = "member_seq_generator",
+        sequenceName = "member_seq",
+        allocationSize = 50 //pooled optimizer : 시퀀스를 한번 조회하면 50개의 id 를 메모리에서 할당
+)
 public class Member
         //extends JpaBaseEntity
     extends BaseEntity
 {
 
-    @Id @GeneratedValue
+    //IDENTITY 전략은 insert 를 즉시 실행해야 해서 JDBC 배치가 불가능
+    //MySQL 처럼 시퀀스가 없는 DB 는 member_seq 테이블로 시퀀스를 흉내냄
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
     @Column(name = "member_id")
     private Long id;
 
+    @Version //수정할 때 where version = ? 로 동시 수정을 감지 (낙관적 락)
+    private Long version;
+
     private String username;
 
     private int age;
@@ -1,8 +1,12 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
+import javax.persistence.Cacheable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,15 +15,24 @@ import java.util.List;
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Cacheable //2차 캐시 : 지연 로딩되는 Member.team 을 DB 대신 캐시에서 조회
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name")) //회원 검색의 팀 이름 조건 (MemberSearch)
+@BatchSize(size = 100) //Member.team 프록시를 초기화할 때 영속성 컨텍스트의 다른 팀 프록시도 in 절로 같이 조회
 public class Team extends JpaBaseEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
     @Column(name = "team_id")
     private Long id;
 
+    @Version
+    private Long version;
+
     private String name;
 
+    @BatchSize(size = 100) //팀 하나의 members 를 초기화할 때 다른 팀의 members 도 in 절로 같이 조회
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
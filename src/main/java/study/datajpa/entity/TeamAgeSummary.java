@@ -0,0 +1,46 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import java.io.Serializable;
+
+/**
+ * 팀, 나이별 회원 수 요약 테이블 - member 를 group by 하지 않고 팀 통계와 임의 폭의 나이 구간을 계산
+ * JPA 로 저장하지 않고 TeamSummary 가 JDBC 로 증감 (테이블 생성과 조회용 매핑)
+ * 회원이 모두 빠진 (팀, 나이) 는 member_count = 0 으로 남음
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@IdClass(TeamAgeSummary.Key.class)
+public class TeamAgeSummary {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Id
+    private int age;
+
+    private long memberCount;
+
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor(access = AccessLevel.PROTECTED)
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long teamId;
+        private int age;
+    }
+}
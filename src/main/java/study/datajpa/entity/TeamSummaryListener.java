@@ -0,0 +1,33 @@
+package study.datajpa.entity;
+
+import lombok.RequiredArgsConstructor;
+import study.datajpa.repository.TeamSummary;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PreRemove;
+import javax.persistence.PreUpdate;
+
+/**
+ * Member 저장/수정(changeTeam, 나이 변경)/삭제를 team_age_summary 증감으로 변환 (반영은 커밋 직전)
+ * 저장은 insert 된 값, 수정/삭제는 이전 값이 필요하므로 모두 loaded state 를 읽음 (수정, 삭제는 Pre 이벤트)
+ */
+@RequiredArgsConstructor
+public class TeamSummaryListener {
+
+    private final TeamSummary teamSummary;
+
+    @PostPersist
+    public void persisted(Member member) {
+        teamSummary.persisted(member);
+    }
+
+    @PreUpdate
+    public void updated(Member member) {
+        teamSummary.updated(member);
+    }
+
+    @PreRemove
+    public void removed(Member member) {
+        teamSummary.removed(member);
+    }
+}
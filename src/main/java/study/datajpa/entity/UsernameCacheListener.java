@@ -0,0 +1,26 @@
+package study.datajpa.entity;
+
+import lombok.RequiredArgsConstructor;
+import study.datajpa.repository.UsernameCache;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Member 가 저장/수정/삭제되면 UsernameCache 에서 제거 - 저장 시에는 없는 id 로 캐시된 값을 지움
+ * flush 시점에 제거하고, 트랜잭션이 완료된 후에 한번 더 제거 (UsernameCache)
+ * 하이버네이트가 스프링 빈으로 생성 (SpringBeanContainer)
+ */
+@RequiredArgsConstructor
+public class UsernameCacheListener {
+
+    private final UsernameCache usernameCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void evict(Member member) {
+        usernameCache.evict(member.getId());
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.metrics;
+
+/**
+ * 현재 스레드에서 실행된 SQL 수 / 로딩된 엔티티 수
+ * 값을 초기화하지 않고 계속 증가시키므로 사용하는 쪽에서 전후 차이로 계산한다 (중첩 호출에도 안전)
+ */
+public final class QueryCounters {
+
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[2]);
+
+    private static final int STATEMENTS = 0;
+    private static final int ENTITIES_LOADED = 1;
+
+    private QueryCounters() {
+    }
+
+    static void statementExecuted() {
+        COUNTERS.get()[STATEMENTS]++;
+    }
+
+    static void entityLoaded() {
+        COUNTERS.get()[ENTITIES_LOADED]++;
+    }
+
+    public static long statements() {
+        return COUNTERS.get()[STATEMENTS];
+    }
+
+    public static long entitiesLoaded() {
+        return COUNTERS.get()[ENTITIES_LOADED];
+    }
+}
@@ -0,0 +1,44 @@
+package study.datajpa.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 요청 하나에서 같은 SQL 이 threshold 번 이상 실행되면 호출 위치와 함께 경고 로그 (N+1 감지)
+ * 스테이징에서 app.sql.repeated-statement.enabled=true 로 사용
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.sql.repeated-statement.enabled", havingValue = "true")
+public class RepeatedStatementFilter extends OncePerRequestFilter {
+
+    private final int threshold;
+
+    public RepeatedStatementFilter(@Value("${app.sql.repeated-statement.threshold:10}") int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (StatementRecorder recorder = StatementRecorder.start(threshold)) {
+            chain.doFilter(request, response);
+
+            for (Map.Entry<String, Integer> entry : recorder.repeated(threshold).entrySet()) {
+                log.warn("N+1 suspected: {} {} executed the same statement {} times (total {}) at {}\n{}",
+                        request.getMethod(), request.getRequestURI(), entry.getValue(), recorder.count(),
+                        recorder.callSite(entry.getKey()), entry.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 리포지토리 메서드별 반환 row 수, 실행한 SQL 수, 로딩한 엔티티 수를 기록
+ * 실행 시간은 스프링 부트의 spring.data.repository.invocations 타이머가 기록한다
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final MeterRegistry registry;
+    private final String repository;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(MeterRegistry registry, Class<?> repositoryInterface) {
+        this.registry = registry;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long statements = QueryCounters.statements();
+        long entities = QueryCounters.entitiesLoaded();
+
+        Object result = invocation.proceed();
+
+        Meters m = meters.computeIfAbsent(invocation.getMethod(), this::createMeters);
+        m.statements.record(QueryCounters.statements() - statements);
+        m.entities.record(QueryCounters.entitiesLoaded() - entities);
+        long rows = rows(result);
+        if (rows >= 0) {
+            m.rows.record(rows);
+        }
+        return result;
+    }
+
+    private Meters createMeters(Method method) {
+        return new Meters(
+                summary("repository.rows", "rows returned", method),
+                summary("repository.statements", "SQL statements executed", method),
+                summary("repository.entities.loaded", "entities loaded", method));
+    }
+
+    private DistributionSummary summary(String name, String description, Method method) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("repository", repository)
+                .tag("method", method.getName())
+                .register(registry);
+    }
+
+    //Stream 처럼 크기를 알 수 없는 경우 -1
+    private static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof java.util.stream.BaseStream) {
+            return -1;
+        }
+        return result instanceof Number || result instanceof Boolean ? -1 : 1; //count, exists, 벌크 수정 결과
+    }
+
+    private static final class Meters {
+        private final DistributionSummary rows;
+        private final DistributionSummary statements;
+        private final DistributionSummary entities;
+
+        private Meters(DistributionSummary rows, DistributionSummary statements, DistributionSummary entities) {
+            this.rows = rows;
+            this.statements = statements;
+            this.entities = entities;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package study.datajpa.metrics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 가 감싼 DataSource 에서 실행되는 모든 SQL 을 센다 (batch 는 executeBatch 한번을 1건으로)
+ * 파라미터가 바인딩되기 전의 SQL 로 기록하므로 id 만 다른 N+1 쿼리는 같은 SQL 로 집계됨
+ */
+@Component
+public class StatementCountingListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryCounters.statementExecuted();
+        StatementRecorder.record(statementInformation.getSql());
+    }
+}
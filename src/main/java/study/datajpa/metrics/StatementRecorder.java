@@ -0,0 +1,115 @@
+package study.datajpa.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 현재 스레드에서 실행되는 SQL 을 문장별로 기록 (StatementCountingListener 가 채움)
+ * 테스트에서는 실행된 SQL 수를 검증하고, 요청 단위로는 같은 SQL 이 반복되는 N+1 을 찾는데 사용
+ *
+ * try (StatementRecorder recorder = StatementRecorder.start()) {
+ *     ...
+ *     recorder.assertCount(1);
+ * }
+ */
+public final class StatementRecorder implements AutoCloseable {
+
+    private static final ThreadLocal<StatementRecorder> CURRENT = new ThreadLocal<>();
+
+    private final StatementRecorder previous;
+    private final int callSiteThreshold;
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+    private final Map<String, String> callSites = new LinkedHashMap<>();
+    private int total;
+
+    private StatementRecorder(StatementRecorder previous, int callSiteThreshold) {
+        this.previous = previous;
+        this.callSiteThreshold = callSiteThreshold;
+    }
+
+    public static StatementRecorder start() {
+        return start(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param callSiteThreshold 같은 SQL 이 이 횟수만큼 실행되면 호출 위치를 기록
+     */
+    public static StatementRecorder start(int callSiteThreshold) {
+        StatementRecorder recorder = new StatementRecorder(CURRENT.get(), callSiteThreshold);
+        CURRENT.set(recorder);
+        return recorder;
+    }
+
+    static void record(String sql) {
+        for (StatementRecorder recorder = CURRENT.get(); recorder != null; recorder = recorder.previous) {
+            recorder.add(sql);
+        }
+    }
+
+    private void add(String sql) {
+        total++;
+        int count = counts.merge(sql, 1, Integer::sum);
+        if (count == callSiteThreshold) {
+            callSites.put(sql, callSite());
+        }
+    }
+
+    public int count() {
+        return total;
+    }
+
+    public int count(String sql) {
+        return counts.getOrDefault(sql, 0);
+    }
+
+    public void assertCount(int expected) {
+        if (total != expected) {
+            throw new AssertionError("expected " + expected + " statements but was " + total + ":\n" + describe());
+        }
+    }
+
+    /**
+     * threshold 번 이상 실행된 SQL 과 실행 횟수
+     */
+    public Map<String, Integer> repeated(int threshold) {
+        return Collections.unmodifiableMap(counts.entrySet().stream()
+                .filter(e -> e.getValue() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new)));
+    }
+
+    public String callSite(String sql) {
+        return callSites.getOrDefault(sql, "unknown");
+    }
+
+    public String describe() {
+        return counts.entrySet().stream()
+                .map(e -> e.getValue() + "x " + e.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    //프레임워크와 프록시를 제외한 애플리케이션 코드의 첫 위치
+    private static String callSite() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith("study.datajpa.")
+                    && !className.startsWith(StatementRecorder.class.getPackage().getName())
+                    && !className.contains("$$")) {
+                return element.toString();
+            }
+        }
+        return "unknown";
+    }
+}
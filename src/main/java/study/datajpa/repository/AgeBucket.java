@@ -0,0 +1,9 @@
+package study.datajpa.repository;
+
+//팀별 나이 구간 [ageFrom, ageFrom + width) 의 회원 수 - 회원이 있는 구간만
+public interface AgeBucket {
+
+    Long getTeamId();
+    Integer getAgeFrom();
+    Long getMemberCount();
+}
@@ -0,0 +1,120 @@
+package study.datajpa.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Page 의 total count 조회 전략
+ * 1. 첫 페이지가 다 차지 않았거나 마지막 페이지인 경우 count 쿼리를 생략 (PageableExecutionUtils)
+ * 2. 그 외에는 쿼리 + 파라미터를 키로 ttl 동안 캐시된 값을 사용 (근사값, 최대 maximumSize 개)
+ * 3. 쓰기 트랜잭션에서 조회한 count 는 커밋되지 않은 변경이 포함될 수 있으므로
+ *    그 트랜잭션 안에서만 사용하고 커밋된 후에 캐시에 넣음 (롤백되면 버림)
+ * 벌크 수정이 발생하면 evictAll() 로 전체 무효화 - 트랜잭션 안이면 완료된 후에 한번 더
+ */
+@Component
+public class CountCache {
+
+    private final Cache<String, Long> cache;
+
+    public CountCache(@Value("${app.count-cache.ttl:30s}") Duration ttl,
+                      @Value("${app.count-cache.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public <T> Page<T> page(List<T> content, Pageable pageable, String query, LongSupplier countQuery, Object... params) {
+        String key = key(query, params);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(key, countQuery));
+    }
+
+    public long count(String query, LongSupplier countQuery, Object... params) {
+        return count(key(query, params), countQuery);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+        PendingCounts pending = pendingCounts(false);
+        if (pending != null) {
+            pending.counts.clear();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            //커밋 전에 다른 스레드가 이전 count 를 다시 캐시했을 수 있음
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll();
+                }
+            });
+        }
+    }
+
+    private long count(String key, LongSupplier countQuery) {
+        PendingCounts pending = pendingCounts(true);
+        if (pending == null) {
+            return cache.get(key, k -> countQuery.getAsLong());
+        }
+        Long count = pending.counts.get(key);
+        if (count == null) {
+            count = cache.getIfPresent(key);
+        }
+        if (count == null) {
+            count = countQuery.getAsLong();
+            pending.counts.put(key, count);
+        }
+        return count;
+    }
+
+    //쓰기 트랜잭션이면 현재 트랜잭션의 PendingCounts (create 가 true 면 없을 때 등록)
+    //REQUIRES_NEW 로 중단된 바깥 트랜잭션의 것은 보이지 않도록 리소스가 아닌 synchronization 으로 보관
+    private PendingCounts pendingCounts(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingCounts && ((PendingCounts) synchronization).owner == this) {
+                return (PendingCounts) synchronization;
+            }
+        }
+        if (!create) {
+            return null;
+        }
+        PendingCounts pending = new PendingCounts(this);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private static String key(String query, Object[] params) {
+        return params.length == 0 ? query : query + Arrays.toString(params);
+    }
+
+    private static final class PendingCounts implements TransactionSynchronization {
+        private final CountCache owner;
+        private final Map<String, Long> counts = new HashMap<>();
+
+        private PendingCounts(CountCache owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void afterCommit() {
+            owner.cache.putAll(counts);
+        }
+    }
+}
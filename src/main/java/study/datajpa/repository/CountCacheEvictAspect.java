@@ -0,0 +1,23 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * @Modifying 벌크 쿼리(bulkAgePlus 등)가 실행되면 캐시된 count 를 무효화
+ * 바깥 트랜잭션이 있으면 커밋 전까지 다른 스레드가 이전 count 를 다시 캐시할 수 있으므로 완료된 후에 한번 더 (CountCache.evictAll)
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class CountCacheEvictAspect {
+
+    private final CountCache countCache;
+
+    @AfterReturning("@annotation(org.springframework.data.jpa.repository.Modifying)")
+    public void evict() {
+        countCache.evictAll();
+    }
+}
@@ -0,0 +1,12 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    //id 가 이미 있으면 수정, 없으면 저장 - select 후 merge 하지 않고 네이티브 upsert 를 JDBC 배치로 실행
+    //MySQL : insert ... on duplicate key update / H2 : merge into ... using
+    UpsertResult upsertAll(Collection<Item> items);
+}
@@ -0,0 +1,96 @@
+package study.datajpa.repository;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String MYSQL_UPSERT =
+            "insert into item (id, created_date, last_modified_date) values (?, ?, ?) as new" +
+            " on duplicate key update last_modified_date = new.last_modified_date";
+
+    private static final String H2_UPSERT =
+            "merge into item t" +
+            " using (select cast(? as varchar) id, cast(? as timestamp) created_date, cast(? as timestamp) last_modified_date) s" +
+            " on t.id = s.id" +
+            " when matched then update set t.last_modified_date = s.last_modified_date" +
+            " when not matched then insert (id, created_date, last_modified_date)" +
+            " values (s.id, s.created_date, s.last_modified_date)";
+
+    private final EntityManager em;
+    private final DataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private volatile String upsertSql;
+
+    public ItemRepositoryImpl(EntityManager em, DataSource dataSource) {
+        this.em = em;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @Override
+    @Transactional
+    public UpsertResult upsertAll(Collection<Item> items) {
+        em.flush(); //영속성 컨텍스트에 남아있는 Item 을 먼저 반영
+
+        //같은 id 가 여러번 있으면 한번만
+        Map<String, Item> byId = new LinkedHashMap<>();
+        for (Item item : items) {
+            byId.put(item.getId(), item);
+        }
+        List<String> ids = new ArrayList<>(byId.keySet());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        UpsertResult result = new UpsertResult(0, 0);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            result = result.plus(upsertChunk(chunk, now));
+        }
+        return result;
+    }
+
+    private UpsertResult upsertChunk(List<String> ids, Timestamp now) {
+        //MySQL 은 배치 실행 결과로 insert/update 를 구분할 수 없으므로 (rewriteBatchedStatements) 미리 조회
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "select id from item where id in (:ids)", Map.of("ids", ids), String.class));
+
+        List<Object[]> batchArgs = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            batchArgs.add(new Object[]{id, now, now});
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(upsertSql(), batchArgs);
+        return new UpsertResult(ids.size() - existing.size(), existing.size());
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+                sql = "H2".equals(product) ? H2_UPSERT : MYSQL_UPSERT;
+            } catch (MetaDataAccessException e) {
+                sql = MYSQL_UPSERT;
+            }
+            upsertSql = sql;
+        }
+        return sql;
+    }
+}
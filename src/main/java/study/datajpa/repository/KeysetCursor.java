@@ -0,0 +1,69 @@
+package study.datajpa.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징의 위치 정보 - 마지막으로 본 정렬 키 + id
+ * 클라이언트에는 encode() 로 만든 불투명한 토큰으로만 전달한다.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final String key;
+    private final Long id;
+
+    private KeysetCursor(String key, Long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public static KeysetCursor of(String key, Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("cursor id must not be null");
+        }
+        return new KeysetCursor(key, id);
+    }
+
+    public static KeysetCursor of(Long id) {
+        return of(null, id);
+    }
+
+    /**
+     * 토큰이 비어있으면 첫 페이지를 의미하므로 null 을 반환
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(SEPARATOR);
+            if (idx < 0) {
+                return of(Long.valueOf(raw));
+            }
+            return of(raw.substring(idx + 1), Long.valueOf(raw.substring(0, idx)));
+        } catch (IllegalArgumentException e) { //NumberFormatException 포함
+            throw new IllegalArgumentException("invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = key == null ? String.valueOf(id) : id + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor(key=" + key + ", id=" + id + ")";
+    }
+}
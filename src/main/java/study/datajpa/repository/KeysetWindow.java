@@ -0,0 +1,58 @@
+package study.datajpa.repository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 키셋 페이징 결과
+ * Page 와 달리 전체 개수/페이지 번호가 없고, 다음 조회에 사용할 토큰만 제공
+ */
+public class KeysetWindow<T> {
+
+    private final List<T> content;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    public KeysetWindow(List<T> content, boolean hasNext, String nextCursor) {
+        this.content = Collections.unmodifiableList(content);
+        this.hasNext = hasNext;
+        this.nextCursor = hasNext ? nextCursor : null;
+    }
+
+    /**
+     * size + 1 개를 조회한 결과로 Window 를 생성 (Slice 와 같은 방식으로 다음 페이지 여부를 판단)
+     */
+    public static <T> KeysetWindow<T> of(List<T> fetched, int size, Function<T, KeysetCursor> cursorOf) {
+        boolean hasNext = fetched.size() > size;
+        List<T> content = hasNext ? fetched.subList(0, size) : fetched;
+        String next = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new KeysetWindow<>(content, hasNext, next);
+    }
+
+    public <U> KeysetWindow<U> map(Function<? super T, ? extends U> converter) {
+        List<U> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new KeysetWindow<>(converted, hasNext, nextCursor);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public boolean isHasNext() { //JSON 직렬화용
+        return hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public int getSize() {
+        return content.size();
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 비관적 락 대기 시간 (app.lock.timeout)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.lock")
+public class LockProperties {
+
+    private Duration timeout = Duration.ofSeconds(3);
+}
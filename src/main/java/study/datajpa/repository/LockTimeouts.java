@@ -0,0 +1,78 @@
+package study.datajpa.repository;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.function.Supplier;
+
+/**
+ * 락 대기 시간을 현재 트랜잭션의 커넥션에 잠시 설정
+ * 하이버네이트의 MySQL/H2 dialect 는 javax.persistence.lock.timeout 의 양수 값을 SQL 에 반영하지 않으므로
+ * MySQL : innodb_lock_wait_timeout (초 단위, 올림) / H2 : LOCK_TIMEOUT (밀리초)
+ */
+@Component
+public class LockTimeouts {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String product;
+
+    public LockTimeouts(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    //트랜잭션 안에서 호출해야 같은 커넥션에 설정됨
+    public <T> T withTimeout(LockWait wait, Supplier<T> query) {
+        if (!wait.isTimeout()) {
+            return query.get(); //skip locked, nowait 은 SQL 로 표현
+        }
+        String product = product();
+        if ("MySQL".equals(product)) {
+            Integer previous = jdbcTemplate.queryForObject("select @@innodb_lock_wait_timeout", Integer.class);
+            long seconds = Math.max(1, (wait.toHint() + 999) / 1000);
+            return withSetting("set session innodb_lock_wait_timeout = " + seconds,
+                    "set session innodb_lock_wait_timeout = " + previous, query);
+        }
+        if ("H2".equals(product)) {
+            Integer previous = jdbcTemplate.queryForObject("select lock_timeout()", Integer.class);
+            return withSetting("set lock_timeout " + wait.toHint(), "set lock_timeout " + previous, query);
+        }
+        return query.get(); //그 외 DB 는 힌트를 dialect 가 처리
+    }
+
+    private <T> T withSetting(String set, String restore, Supplier<T> query) {
+        jdbcTemplate.execute(set);
+        T result;
+        try {
+            result = query.get();
+        } catch (RuntimeException e) {
+            try {
+                jdbcTemplate.execute(restore);
+            } catch (DataAccessException restoreFailure) {
+                e.addSuppressed(restoreFailure); //타임아웃으로 커넥션이 닫힌 경우 등 - 원래 예외를 그대로 전달
+            }
+            throw e;
+        }
+        jdbcTemplate.execute(restore);
+        return result;
+    }
+
+    private String product() {
+        String result = product;
+        if (result == null) {
+            try {
+                result = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            } catch (MetaDataAccessException e) {
+                result = "";
+            }
+            product = result;
+        }
+        return result;
+    }
+}
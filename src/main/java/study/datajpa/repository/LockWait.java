@@ -0,0 +1,64 @@
+package study.datajpa.repository;
+
+import org.hibernate.LockOptions;
+
+import java.time.Duration;
+
+/**
+ * 비관적 락을 얻지 못했을 때의 동작
+ * skipLocked : 다른 트랜잭션이 잠근 row 는 건너뜀 (작업 큐)
+ * nowait : 바로 실패
+ * timeout : 지정한 시간까지 기다린 후 실패
+ * forever : 락이 풀릴 때까지 대기 (DB 설정에 따름)
+ */
+public final class LockWait {
+
+    private static final LockWait SKIP_LOCKED = new LockWait(LockOptions.SKIP_LOCKED);
+    private static final LockWait NO_WAIT = new LockWait(LockOptions.NO_WAIT);
+    private static final LockWait FOREVER = new LockWait(LockOptions.WAIT_FOREVER);
+
+    private final int millis; //javax.persistence.lock.timeout 힌트 값
+
+    private LockWait(int millis) {
+        this.millis = millis;
+    }
+
+    public static LockWait skipLocked() {
+        return SKIP_LOCKED;
+    }
+
+    public static LockWait nowait() {
+        return NO_WAIT;
+    }
+
+    public static LockWait forever() {
+        return FOREVER;
+    }
+
+    public static LockWait timeout(Duration timeout) {
+        long millis = timeout.toMillis();
+        if (millis <= 0) {
+            return NO_WAIT;
+        }
+        return new LockWait((int) Math.min(millis, Integer.MAX_VALUE));
+    }
+
+    public int toHint() {
+        return millis;
+    }
+
+    //하이버네이트가 SQL 로 표현하지 못하는 (MySQL, H2) 대기 시간 - 커넥션 설정으로 처리
+    boolean isTimeout() {
+        return millis > 0;
+    }
+
+    @Override
+    public String toString() {
+        switch (millis) {
+            case LockOptions.SKIP_LOCKED: return "LockWait[skipLocked]";
+            case LockOptions.NO_WAIT: return "LockWait[nowait]";
+            case LockOptions.WAIT_FOREVER: return "LockWait[forever]";
+            default: return "LockWait[" + millis + "ms]";
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package study.datajpa.repository;
+
+import org.hibernate.Cache;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.auditing.AuditingHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 배치 작업용 Member 대량 조회/저장 - 하이버네이트 StatelessSession 사용
+ * 영속성 컨텍스트, 스냅샷(변경 감지), 엔티티 리스너, 2차 캐시를 거치지 않으므로 메모리 사용량이 일정
+ * 1. AuditingEntityListener 가 동작하지 않으므로 createdBy, createdDate 등은 AuditingHandler 로 직접 채움
+ * 2. 2차 캐시를 갱신하지 않으므로 수정한 회원은 캐시에서 제거, 쿼리 캐시와 count, username 캐시도 무효화
+ * 3. 트랜잭션의 커넥션을 같이 사용 - 호출 전 EntityManager 의 변경 내용은 먼저 flush
+ * 4. 팀 요약(TeamSummary)은 저장/수정 전후 값으로 직접 증감 (이전 값을 모르는 updateAll 은 전체를 다시 집계)
+ */
+@Repository
+public class MemberBulkRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final SessionFactory sessionFactory;
+    private final DataSource dataSource;
+    private final ObjectProvider<AuditingHandler> auditingHandler;
+    private final CountCache countCache;
+    private final UsernameCache usernameCache;
+    private final TeamSummary teamSummary;
+
+    public MemberBulkRepository(SessionFactory sessionFactory, DataSource dataSource,
+                                ObjectProvider<AuditingHandler> auditingHandler,
+                                CountCache countCache, UsernameCache usernameCache, TeamSummary teamSummary) {
+        this.sessionFactory = sessionFactory;
+        this.dataSource = dataSource;
+        this.auditingHandler = auditingHandler;
+        this.countCache = countCache;
+        this.usernameCache = usernameCache;
+        this.teamSummary = teamSummary;
+    }
+
+    //전체 회원을 id 순으로 fetchSize 만큼씩 읽으면서 처리 (팀도 같이 조회, 읽은 엔티티는 어디에도 보관하지 않음)
+    @Transactional(readOnly = true)
+    public long forEach(int fetchSize, Consumer<Member> action) {
+        return inStatelessSession(session -> {
+            long count = 0;
+            try (ScrollableResults results = scroll(session, fetchSize)) {
+                while (results.next()) {
+                    action.accept((Member) results.get(0));
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    @Transactional
+    public int insertAll(Iterable<Member> members) {
+        int count = inStatelessSession(session -> {
+            int inserted = 0;
+            for (Member member : members) {
+                markCreated(member);
+                session.insert(member);
+                teamSummary.persisted(member);
+                inserted++;
+            }
+            return inserted;
+        });
+        invalidateCaches();
+        return count;
+    }
+
+    @Transactional
+    public int updateAll(Iterable<Member> members) {
+        Cache cache = sessionFactory.getCache();
+        int count = inStatelessSession(session -> {
+            int updated = 0;
+            for (Member member : members) {
+                markModified(member);
+                session.update(member);
+                cache.evictEntityData(Member.class, member.getId());
+                updated++;
+            }
+            return updated;
+        });
+        teamSummary.rebuild();
+        invalidateCaches();
+        return count;
+    }
+
+    //전체 회원을 읽으면서 modifier 가 true 를 반환한 회원만 바로 update (서버 커서로 읽는 중에 같은 커넥션으로 수정)
+    @Transactional
+    public long updateEach(int fetchSize, Predicate<Member> modifier) {
+        Cache cache = sessionFactory.getCache();
+        long count = inStatelessSession(session -> {
+            long updated = 0;
+            try (ScrollableResults results = scroll(session, fetchSize)) {
+                while (results.next()) {
+                    Member member = (Member) results.get(0);
+                    Team team = member.getTeam();
+                    int age = member.getAge();
+                    if (modifier.test(member)) {
+                        markModified(member);
+                        session.update(member);
+                        cache.evictEntityData(Member.class, member.getId());
+                        if (team != member.getTeam() || age != member.getAge()) {
+                            teamSummary.add(team == null ? null : team.getId(), age, -1);
+                            teamSummary.persisted(member);
+                        }
+                        updated++;
+                    }
+                }
+            }
+            return updated;
+        });
+        invalidateCaches();
+        return count;
+    }
+
+    private static ScrollableResults scroll(StatelessSession session, int fetchSize) {
+        return session.createQuery("select m from Member m left join fetch m.team order by m.id", Member.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    private <R> R inStatelessSession(Function<StatelessSession, R> work) {
+        em.flush();
+        Connection connection = DataSourceUtils.getConnection(dataSource); //트랜잭션에 묶인 커넥션
+        try (StatelessSession session = sessionFactory.openStatelessSession(connection)) {
+            R result = work.apply(session);
+            //insert/update 는 hibernate.jdbc.batch_size 단위로 JDBC 배치 실행 - 마지막에 남은 배치는 직접 실행
+            ((SharedSessionContractImplementor) session).getJdbcCoordinator().executeBatch();
+            return result;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void markCreated(Member member) {
+        auditingHandler.ifAvailable(handler -> handler.markCreated(member));
+    }
+
+    private void markModified(Member member) {
+        auditingHandler.ifAvailable(handler -> handler.markModified(member));
+    }
+
+    private void invalidateCaches() {
+        sessionFactory.getCache().evictDefaultQueryRegion(); //Member.findByUsername 등 쿼리 캐시
+        countCache.evictAll();
+        usernameCache.evictAll(); //엔티티 리스너가 동작하지 않음
+    }
+}
@@ -0,0 +1,140 @@
+package study.datajpa.repository;
+
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Member 벌크 수정을 id 범위(chunkSize) 단위로 나눠서 실행
+ * 1. 바깥 트랜잭션이 없으면 범위마다 트랜잭션을 커밋 -> 한번에 많은 row 에 락을 오래 걸지 않음
+ *    (바깥 트랜잭션이 있으면 참여하므로 락은 바깥 트랜잭션이 끝날 때 풀림)
+ * 2. 영속성 컨텍스트 전체를 clear 하지 않고 수정 대상에 해당하는 Member 만 refresh 또는 detach
+ * JPQL 벌크 수정이므로 2차 캐시의 member region 은 하이버네이트가 무효화
+ * 엔티티 이벤트가 없으므로 팀 요약(TeamSummary)은 agePlus 는 바뀐 나이 범위만, update 는 전체를 다시 집계
+ */
+@Component
+public class MemberBulkUpdater {
+
+    public enum Reconcile {
+        REFRESH, //수정된 값을 다시 조회 (엔티티마다 select 한번)
+        EVICT //준영속으로 만들고 필요할 때 다시 조회
+    }
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final CountCache countCache;
+    private final UsernameCache usernameCache;
+    private final TeamSummary teamSummary;
+    private final int chunkSize;
+
+    public MemberBulkUpdater(EntityManager em, PlatformTransactionManager transactionManager,
+                             CountCache countCache, UsernameCache usernameCache, TeamSummary teamSummary,
+                             @Value("${app.bulk.chunk-size:10000}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager); //PROPAGATION_REQUIRED
+        this.countCache = countCache;
+        this.usernameCache = usernameCache;
+        this.teamSummary = teamSummary;
+        this.chunkSize = chunkSize;
+    }
+
+    //age 이상인 회원의 나이를 1 증가
+    public int agePlus(int age) {
+        int count = execute("m.age = m.age + 1", "m.age >= :age", Map.of("age", age),
+                m -> m.getAge() >= age, Reconcile.REFRESH);
+        teamSummary.recomputeFromAge(age);
+        return count;
+    }
+
+    /**
+     * update Member m set {set} where {where} 를 id 범위마다 실행
+     * @param affected 영속성 컨텍스트의 Member 중 수정 대상인지 판단 (where 와 같은 조건, 수정 전 값 기준)
+     * @return 수정된 row 수
+     */
+    public int update(String set, String where, Map<String, ?> params,
+                      Predicate<Member> affected, Reconcile reconcile) {
+        int count = execute(set, where, params, affected, reconcile);
+        teamSummary.rebuild(); //set 에 team, age 가 있을 수 있음
+        return count;
+    }
+
+    private int execute(String set, String where, Map<String, ?> params,
+                        Predicate<Member> affected, Reconcile reconcile) {
+        List<Member> managed = affectedManagedMembers(affected);
+
+        //수정된 회원의 버전을 올려서 이미 읽어간 트랜잭션의 낙관적 락이 실패하도록
+        String updateJpql = "update Member m set " + set + ", m.version = m.version + 1" +
+                " where (" + where + ") and m.id >= :from and m.id < :to";
+        String nextIdJpql = "select min(m.id) from Member m where (" + where + ") and m.id >= :from";
+
+        Long from = firstId(nextIdJpql, params, Long.MIN_VALUE);
+        int resultCount = 0;
+        while (from != null) {
+            long chunkFrom = from;
+            long chunkTo = chunkFrom + chunkSize;
+            Long[] next = new Long[1];
+            resultCount += transactionTemplate.execute(status -> {
+                Query update = em.createQuery(updateJpql)
+                        .setParameter("from", chunkFrom)
+                        .setParameter("to", chunkTo);
+                params.forEach(update::setParameter);
+                int count = update.executeUpdate();
+                next[0] = firstId(nextIdJpql, params, chunkTo); //id 가 띄엄띄엄 있어도 빈 범위를 건너뜀
+                return count;
+            });
+            from = next[0];
+        }
+
+        for (Member member : managed) {
+            if (reconcile == Reconcile.REFRESH) {
+                em.refresh(member);
+            } else {
+                em.detach(member);
+            }
+        }
+        countCache.evictAll();
+        usernameCache.evictAll(); //set 에 username 이 있을 수 있음
+        return resultCount;
+    }
+
+    private Long firstId(String nextIdJpql, Map<String, ?> params, long from) {
+        Query query = em.createQuery(nextIdJpql)
+                .setParameter("from", from);
+        params.forEach(query::setParameter);
+        return (Long) query.getSingleResult();
+    }
+
+    //바깥 트랜잭션의 영속성 컨텍스트에 있는 Member 중 수정 대상만 - 변경 내용은 벌크 수정 전에 flush
+    private List<Member> affectedManagedMembers(Predicate<Member> affected) {
+        List<Member> result = new ArrayList<>();
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return result; //트랜잭션 밖이면 관리 중인 엔티티가 없음
+        }
+        em.flush();
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            Object entity = entry.getKey();
+            if (entity instanceof Member && entry.getValue().getStatus() == Status.MANAGED
+                    && affected.test((Member) entity)) {
+                result.add((Member) entity);
+            }
+        }
+        return result;
+    }
+}
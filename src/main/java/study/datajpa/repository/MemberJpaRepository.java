@@ -1,19 +1,26 @@
 package study.datajpa.repository;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
+@RequiredArgsConstructor
 public class MemberJpaRepository {
 
     @PersistenceContext
     private EntityManager em;
 
+    private final CountCache countCache;
+    private final MemberBulkUpdater bulkUpdater;
+
     public Member save(Member member) {
         em.persist(member);
         return member;
@@ -28,6 +35,14 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
+    //전체 조회를 Stream 으로 - DTO 로 바로 조회하므로 영속성 컨텍스트에 엔티티가 쌓이지 않음
+    public Stream<MemberDto> streamMemberDto() {
+        return em.createQuery("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                        " from Member m left join m.team t", MemberDto.class)
+                .setHint("org.hibernate.fetchSize", 1000)
+                .getResultStream();
+    }
+
     public Optional<Member> findById(Long id) {
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
@@ -63,15 +78,15 @@ public class MemberJpaRepository {
     }
 
     public long totalCount(int age) {
-        return em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
-                .setParameter("age", age)
-                .getSingleResult();
+        return countCache.count("Member.countByAge", () ->
+                em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult(), age);
     }
 
 
+    //id 범위 단위로 나눠서 수정하고, 영속성 컨텍스트에서는 수정된 회원만 refresh (count 캐시도 무효화)
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
-                .setParameter("age", age)
-                .executeUpdate();
+        return bulkUpdater.agePlus(age);
     }
 }
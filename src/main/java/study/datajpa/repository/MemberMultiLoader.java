@@ -0,0 +1,126 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * 많은 키(id, username)로 Member 를 조회할 때 in 절을 chunkSize 이하로 나눠서 조회
+ * 1. 조각의 크기를 2의 거듭제곱으로 맞춤 (마지막 키를 반복) -> in 절 파라미터 개수가 몇가지로 고정되어 쿼리 계획/statement 캐시 재사용
+ * 2. 트랜잭션 밖에서 호출하면 조각마다 별도의 readOnly 트랜잭션(커넥션)으로 병렬 조회 - 결과는 준영속
+ *    트랜잭션 안에서는 현재 영속성 컨텍스트로 차례대로 조회
+ */
+@Component
+public class MemberMultiLoader implements DisposableBean {
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    public MemberMultiLoader(EntityManager em, PlatformTransactionManager transactionManager,
+                             @Value("${app.multi-load.chunk-size:512}") int chunkSize,
+                             @Value("${app.multi-load.parallelism:4}") int parallelism) {
+        if (Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("chunkSize must be a power of two: " + chunkSize);
+        }
+        this.em = em;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executor = Executors.newFixedThreadPool(parallelism); //커넥션 풀보다 작게
+        this.chunkSize = chunkSize;
+    }
+
+    public MultiLoadResult<Long, Member> loadByIds(Collection<Long> ids) {
+        return load(ids, "select m from Member m where m.id in :keys", Member::getId);
+    }
+
+    //같은 username 의 회원이 여러명이면 id 순으로 모두 포함
+    public MultiLoadResult<String, Member> loadByUsernames(Collection<String> usernames) {
+        return load(usernames, "select m from Member m where m.username in :keys order by m.id", Member::getUsername);
+    }
+
+    private <K> MultiLoadResult<K, Member> load(Collection<K> keys, String jpql, Function<Member, K> keyOf) {
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<List<K>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            chunks.add(padded(distinct.subList(from, Math.min(from + chunkSize, distinct.size()))));
+        }
+
+        List<Member> loaded = new ArrayList<>();
+        if (chunks.size() > 1 && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            List<CompletableFuture<List<Member>>> futures = new ArrayList<>();
+            for (List<K> chunk : chunks) {
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> readOnlyTransaction.execute(status -> query(jpql, chunk)), executor));
+            }
+            try {
+                futures.forEach(future -> loaded.addAll(future.join()));
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        } else {
+            chunks.forEach(chunk -> loaded.addAll(query(jpql, chunk)));
+        }
+
+        //입력 순서대로 다시 정렬
+        Map<K, List<Member>> byKey = new HashMap<>();
+        for (Member member : loaded) {
+            byKey.computeIfAbsent(keyOf.apply(member), k -> new ArrayList<>()).add(member);
+        }
+        List<Member> content = new ArrayList<>(loaded.size());
+        List<K> missing = new ArrayList<>();
+        for (K key : distinct) {
+            List<Member> members = byKey.get(key);
+            if (members == null) {
+                missing.add(key);
+            } else {
+                content.addAll(members);
+            }
+        }
+        return new MultiLoadResult<>(content, missing);
+    }
+
+    private List<Member> query(String jpql, List<?> keys) {
+        return em.createQuery(jpql, Member.class)
+                .setParameter("keys", keys)
+                .getResultList();
+    }
+
+    //크기를 2의 거듭제곱으로 - 남는 자리는 마지막 키로 채움 (in 절에서 중복은 결과에 영향 없음)
+    private static <K> List<K> padded(List<K> chunk) {
+        int size = Integer.highestOneBit(chunk.size());
+        if (size < chunk.size()) {
+            size <<= 1;
+        }
+        List<K> result = new ArrayList<>(size);
+        result.addAll(chunk);
+        K last = chunk.get(chunk.size() - 1);
+        while (result.size() < size) {
+            result.add(last);
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,134 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * 전체 회원을 집계하는 작업을 id 범위(partition)로 나눠서 병렬로 실행
+ * 1. [min(id), max(id)] 를 partitions 개로 나누고 ForkJoinPool 에서 범위마다 별도의 readOnly 트랜잭션(커넥션)으로 읽음
+ *    readOnly 트랜잭션 : 스냅샷을 만들지 않고 flush 하지 않음, 복제본이 설정되어 있으면 복제본에서 조회
+ * 2. 동시에 사용하는 커넥션 수는 ForkJoinPool 의 스레드 수(maxConnections)로 제한 - 커넥션 풀보다 작아야 함
+ * 3. 범위 안에서는 fetchSize 만큼씩 읽고 영속성 컨텍스트를 비움 -> 회원 수와 상관없이 메모리 사용량이 일정
+ *    collector 에 넘어온 회원은 준영속이 되므로 지연 로딩(team 등)은 collector 안에서만 사용
+ * 4. 범위별 결과는 collector 의 combiner 로 id 순서대로 합침 (toList 도 id 순서 유지)
+ * 다른 스레드의 트랜잭션에서 읽으므로 호출한 트랜잭션에서 커밋하지 않은 변경은 보이지 않음
+ */
+@Component
+public class MemberPartitionedScanner implements DisposableBean {
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ForkJoinPool pool;
+    private final int defaultPartitions;
+    private final int fetchSize;
+
+    public MemberPartitionedScanner(EntityManager em, PlatformTransactionManager transactionManager,
+                                    @Value("${app.scan.max-connections:4}") int maxConnections,
+                                    @Value("${app.scan.fetch-size:1000}") int fetchSize,
+                                    @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        if (maxConnections <= 0 || maxConnections >= connectionPoolSize) {
+            throw new IllegalArgumentException("maxConnections must be between 1 and connection pool size - 1 ("
+                    + connectionPoolSize + "): " + maxConnections);
+        }
+        this.em = em;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pool = new ForkJoinPool(maxConnections);
+        this.defaultPartitions = maxConnections * 4; //범위마다 회원 수가 달라도 먼저 끝난 스레드가 남은 범위를 가져감
+        this.fetchSize = fetchSize;
+    }
+
+    public <A, R> R scan(Collector<? super Member, A, R> collector) {
+        return scan(defaultPartitions, collector);
+    }
+
+    public <A, R> R scan(int partitions, Collector<? super Member, A, R> collector) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        }
+        Object[] range = readOnlyTransaction.execute(status ->
+                em.createQuery("select min(m.id), max(m.id) from Member m", Object[].class).getSingleResult());
+        if (range == null || range[0] == null) {
+            return collector.finisher().apply(collector.supplier().get()); //회원이 없음
+        }
+        long min = (Long) range[0];
+        long end = (Long) range[1] + 1;
+        long step = (end - min + partitions - 1) / partitions;
+        int count = (int) ((end - min + step - 1) / step);
+
+        A result = pool.invoke(new ScanTask<>(collector, min, end, step, 0, count));
+        return collector.finisher().apply(result);
+    }
+
+    //partition [lo, hi) 를 반으로 나눠서 fork - partition 하나면 그 id 범위를 직접 읽음
+    private final class ScanTask<A> extends RecursiveTask<A> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Collector<? super Member, A, ?> collector;
+        private final long min;
+        private final long end;
+        private final long step;
+        private final int lo;
+        private final int hi;
+
+        private ScanTask(Collector<? super Member, A, ?> collector, long min, long end, long step, int lo, int hi) {
+            this.collector = collector;
+            this.min = min;
+            this.end = end;
+            this.step = step;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected A compute() {
+            if (hi - lo == 1) {
+                long from = min + lo * step;
+                return readOnlyTransaction.execute(status -> scanRange(from, Math.min(from + step, end)));
+            }
+            int middle = (lo + hi) >>> 1;
+            ScanTask<A> right = new ScanTask<>(collector, min, end, step, middle, hi);
+            right.fork();
+            A left = new ScanTask<>(collector, min, end, step, lo, middle).compute();
+            return collector.combiner().apply(left, right.join()); //id 순서대로 합침
+        }
+
+        private A scanRange(long from, long to) {
+            A container = collector.supplier().get();
+            BiConsumer<A, ? super Member> accumulator = collector.accumulator();
+            try (Stream<Member> members = em.createQuery(
+                            "select m from Member m where m.id >= :from and m.id < :to order by m.id", Member.class)
+                    .setParameter("from", from)
+                    .setParameter("to", to)
+                    .setHint("org.hibernate.fetchSize", fetchSize)
+                    .getResultStream()) {
+                int read = 0;
+                for (Iterator<Member> it = members.iterator(); it.hasNext(); ) {
+                    accumulator.accept(container, it.next());
+                    if (++read % fetchSize == 0) {
+                        em.clear();
+                    }
+                }
+            }
+            return container;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+}
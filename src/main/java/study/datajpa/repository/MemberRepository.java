@@ -5,6 +5,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
@@ -13,6 +14,7 @@ import javax.persistence.QueryHint;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
@@ -44,7 +46,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<MemberDto> findMemberDto();
     
     
-    @Query("select m from Member m where m.username in :names") //in 절을 만들어줌
+    @Query("select m from Member m where m.username in :names") //in 절을 만들어줌 (이름이 많으면 loadAllByUsernames)
     List<Member> findByNames(@Param("names") Collection<String> names);
 
 
@@ -68,8 +70,11 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     // Modifying -> executeUpdate 수행 (bulk 수정 쿼리) 
     // 영속성 컨텍스트를 거치지 않음
     // clearAutomatically 를 true 로 줄 경우 자동으로 영속성 컨텍스트를 초기화
-    @Modifying(clearAutomatically = true) 
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    // 2차 캐시의 Member region 과 쿼리 캐시는 하이버네이트가 자동으로 무효화
+    // 영속성 컨텍스트 전체를 비우지 않으려면 bulkAgePlusChunked 사용
+    @Transactional //readOnly 트랜잭션 밖에서 호출되어도 수정이 가능하도록
+    @Modifying(clearAutomatically = true)
+    @Query("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age") //벌크 수정도 버전을 올림
     int bulkAgePlus(@Param("age") int age);
 
 
@@ -95,11 +100,22 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     @QueryHints(value =
     @QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Transactional(readOnly = true) //복제본이 설정되어 있으면 복제본에서 조회
     Member findReadOnlyByUsername(String username);
 
+    //username 컬럼만 조회 - 엔티티를 만들지 않으므로 영속성 컨텍스트, 스냅샷이 필요 없음 (UsernameCache 에서 사용)
+    @Query("select m.username from Member m where m.id = :id")
+    @Transactional(readOnly = true)
+    Optional<String> findUsernameById(@Param("id") Long id);
+
+    //락을 얻을 때까지 대기 - 대기 시간 지정은 lockByUsername, 작업 큐는 claimNextMembers
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from Member m where m.id = :id")
+    Optional<Member> findLockById(@Param("id") Long id);
+
 
     //Projection
     List<UsernameOnly> findProjectionsByUsername(@Param("username") String username);
@@ -110,7 +126,15 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     Member findByNativeQuery(String username);
 
 
-    @Query(value = "select m.member_id as id, m.username, t.name as teamName from member m left join team t",
+    //Stream - List 로 한번에 올리지 않고 커서로 fetchSize 만큼씩 읽음
+    //트랜잭션 안에서 사용하고 다 쓰면 close 해야함 (try-with-resources)
+    //MySQL 은 url 에 useCursorFetch=true 가 있어야 fetchSize 단위로 가져옴
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    Stream<MemberDto> streamMemberDto();
+
+
+    @Query(value = "select m.member_id as id, m.username, t.name as teamName from member m left join team t on m.team_id = t.team_id",
             countQuery = "select count(*) from member",
             nativeQuery = true)
     Page<MemberProjection> findNativeProjection(Pageable pageable);
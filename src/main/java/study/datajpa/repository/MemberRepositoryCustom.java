@@ -1,9 +1,72 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    //findMemberCustom 의 Stream 버전 - 읽은 엔티티는 바로 준영속으로 만들어 영속성 컨텍스트가 커지지 않음
+    Stream<MemberDto> streamMemberCustom();
+
+    //키셋 페이징 - offset 없이 마지막으로 본 (username, id) 이후부터 조회
+    //정렬 : username desc, id desc (username 이 null 인 회원은 마지막에 id desc)
+    KeysetWindow<Member> findWindowByAge(int age, KeysetCursor cursor, int size);
+
+    //키셋 페이징 - id asc
+    KeysetWindow<Member> findWindow(KeysetCursor cursor, int size);
+
+    //findByAge(int, Pageable) 와 같지만 count 쿼리를 생략하거나 캐시된 값을 사용 (CountCache)
+    Page<Member> findPageByAge(int age, Pageable pageable);
+
+    //findAll(Pageable) 의 count 캐시 버전
+    Page<Member> findAllPage(Pageable pageable);
+
+    //findMemberDto 의 페이징 버전 - 팀 이름까지 쿼리 한번으로 DTO 조회 (엔티티를 만들지 않음)
+    //팀이 없는 회원도 포함하도록 left join, count 는 join 없이 member 만 센다
+    //정렬은 MemberDto 의 속성 이름 (id, username, teamName) + age, 그 외는 UnsupportedSortException
+    Page<MemberDto> findMemberDtoPage(Pageable pageable);
+
+    //동적 검색 - null 이 아닌 조건만 사용, 조건 조합 + 정렬마다 JPQL 을 한번만 만들어 재사용 (MemberSearch)
+    //정렬은 id, username, age, teamName 만 가능 (그 외는 UnsupportedSortException)
+    Page<MemberDto> search(MemberSearchCondition condition, Pageable pageable);
+
+    //전체 회원 집계 - id 범위를 나눠서 범위마다 별도의 readOnly 트랜잭션으로 병렬 조회하고 collector 로 합침 (MemberPartitionedScanner)
+    //동시에 사용하는 커넥션은 app.scan.max-connections 개, collector 에 넘어온 회원은 바로 준영속이 됨
+    <A, R> R scanAll(Collector<? super Member, A, R> collector);
+
+    <A, R> R scanAll(int partitions, Collector<? super Member, A, R> collector);
+
+    //대량 저장 - batchSize 마다 flush/clear 해서 JDBC 배치로 insert 하고 영속성 컨텍스트를 비움
+    //기존 트랜잭션에 참여하면 그 영속성 컨텍스트도 같이 비워지므로 주의
+    int saveAllBatched(Iterable<Member> members, int batchSize);
+
+    //bulkAgePlus 를 id 범위 단위로 나눠 실행 - 영속성 컨텍스트는 clear 하지 않고 수정된 회원만 refresh (MemberBulkUpdater)
+    int bulkAgePlusChunked(int age);
+
+    //findByNames / findAllById 의 대량 버전 - in 절을 2의 거듭제곱 크기로 나눠서 조회, 입력 순서 유지 + 없는 키 반환 (MemberMultiLoader)
+    MultiLoadResult<String, Member> loadAllByUsernames(Collection<String> usernames);
+
+    MultiLoadResult<Long, Member> loadAllById(Collection<Long> ids);
+
+    //작업 큐 - 다른 트랜잭션이 잠근 회원은 건너뛰고 id 순으로 n 명을 잠금 (select ... for update skip locked)
+    //여러 작업자가 동시에 호출해도 서로 다른 회원을 가져감, 락은 트랜잭션이 끝날 때 풀림
+    //SKIP LOCKED 를 지원하지 않는 DB(H2 등)에서는 일반 for update 로 동작
+    List<Member> claimNextMembers(int n);
+
+    //claimNextMembers 와 같지만 age 가 같은 회원만 - 처리한 회원의 age 를 바꾸면 다음 조회에서 빠짐
+    List<Member> claimNextMembersByAge(int age, int n);
+
+    //findLockByUsername 에 락 대기 방식 지정 (nowait, timeout, skipLocked)
+    List<Member> lockByUsername(String username, LockWait wait);
+
+    //app.lock.timeout 만큼만 대기
+    List<Member> lockByUsername(String username);
 }
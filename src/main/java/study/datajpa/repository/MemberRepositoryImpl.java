@@ -1,19 +1,232 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.applySorting;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final int STREAM_FETCH_SIZE = 1000;
+
     private final EntityManager em;
+    private final CountCache countCache;
+    private final MemberBulkUpdater bulkUpdater;
+    private final MemberMultiLoader multiLoader;
+    private final LockTimeouts lockTimeouts;
+    private final LockProperties lockProperties;
+    private final MemberSearch memberSearch;
+    private final MemberPartitionedScanner partitionedScanner;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    public Stream<MemberDto> streamMemberCustom() {
+        return em.createQuery("select m from Member m left join fetch m.team", Member.class)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .setHint("org.hibernate.readOnly", true) //스냅샷을 만들지 않음
+                .getResultStream()
+                .map(member -> {
+                    Team team = member.getTeam();
+                    MemberDto dto = new MemberDto(member.getId(), member.getUsername(), team == null ? null : team.getName());
+                    em.detach(member);
+                    return dto;
+                });
+    }
+
+    @Override
+    public KeysetWindow<Member> findWindowByAge(int age, KeysetCursor cursor, int size) {
+        //username 이 null 인 회원은 맨 뒤에 id desc 로 - null 은 비교 조건에 걸리지 않으므로 따로 조회
+        //cursor 의 key 가 null 이면 이미 null 구간을 보는 중
+        List<Member> result = new ArrayList<>();
+        if (cursor == null || cursor.getKey() != null) {
+            TypedQuery<Member> query;
+            if (cursor == null) {
+                query = em.createQuery("select m from Member m where m.age = :age and m.username is not null" +
+                        " order by m.username desc, m.id desc", Member.class);
+            } else {
+                //(username, id) < (:username, :id) 를 풀어쓴 조건 -> 인덱스를 타고 바로 해당 위치부터 읽음
+                query = em.createQuery("select m from Member m where m.age = :age" +
+                        " and (m.username < :username or (m.username = :username and m.id < :id))" +
+                        " order by m.username desc, m.id desc", Member.class)
+                        .setParameter("username", cursor.getKey())
+                        .setParameter("id", cursor.getId());
+            }
+            result.addAll(query
+                    .setParameter("age", age)
+                    .setMaxResults(size + 1) //다음 페이지 여부 확인을 위해 하나 더 조회
+                    .getResultList());
+        }
+        if (result.size() <= size) {
+            //null 구간 - 앞 구간이 모자랄 때만 조회
+            long idBound = cursor != null && cursor.getKey() == null ? cursor.getId() : Long.MAX_VALUE;
+            result.addAll(em.createQuery("select m from Member m where m.age = :age and m.username is null" +
+                    " and m.id < :id order by m.id desc", Member.class)
+                    .setParameter("age", age)
+                    .setParameter("id", idBound)
+                    .setMaxResults(size + 1 - result.size())
+                    .getResultList());
+        }
+        return KeysetWindow.of(result, size, m -> KeysetCursor.of(m.getUsername(), m.getId()));
+    }
+
+    @Override
+    public KeysetWindow<Member> findWindow(KeysetCursor cursor, int size) {
+        List<Member> result = em.createQuery("select m from Member m where m.id > :id order by m.id", Member.class)
+                .setParameter("id", cursor == null ? Long.MIN_VALUE : cursor.getId())
+                .setMaxResults(size + 1)
+                .getResultList();
+        return KeysetWindow.of(result, size, m -> KeysetCursor.of(m.getId()));
+    }
+
+    @Override
+    public Page<Member> findPageByAge(int age, Pageable pageable) {
+        TypedQuery<Member> query = em.createQuery(
+                applySorting("select m from Member m where m.age = :age", pageable.getSort(), "m"), Member.class)
+                .setParameter("age", age);
+        List<Member> content = paged(query, pageable).getResultList();
+
+        return countCache.page(content, pageable, "Member.countByAge", () ->
+                em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult(), age);
+    }
+
+    @Override
+    public Page<Member> findAllPage(Pageable pageable) {
+        TypedQuery<Member> query = em.createQuery(
+                applySorting("select m from Member m", pageable.getSort(), "m"), Member.class);
+        List<Member> content = paged(query, pageable).getResultList();
+
+        return countCache.page(content, pageable, "Member.count", () ->
+                em.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+    }
+
+    @Override
+    public Page<MemberDto> findMemberDtoPage(Pageable pageable) {
+        //조건 없는 검색과 같은 쿼리 - 정렬 키(teamName 등 DTO 속성)를 MemberSearch 가 경로로 변환
+        return memberSearch.search(new MemberSearchCondition(), pageable);
+    }
+
+    @Override
+    public Page<MemberDto> search(MemberSearchCondition condition, Pageable pageable) {
+        return memberSearch.search(condition, pageable);
+    }
+
+    @Override
+    public <A, R> R scanAll(Collector<? super Member, A, R> collector) {
+        return partitionedScanner.scan(collector);
+    }
+
+    @Override
+    public <A, R> R scanAll(int partitions, Collector<? super Member, A, R> collector) {
+        return partitionedScanner.scan(partitions, collector);
+    }
+
+    @Override
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        Session session = em.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize); //hibernate.jdbc.batch_size 를 이 세션에서만 덮어씀
+        try {
+            int count = 0;
+            for (Member member : members) {
+                em.persist(member);
+                if (++count % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            return count;
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+
+    @Override
+    public int bulkAgePlusChunked(int age) {
+        return bulkUpdater.agePlus(age);
+    }
+
+    @Override
+    public MultiLoadResult<String, Member> loadAllByUsernames(Collection<String> usernames) {
+        return multiLoader.loadByUsernames(usernames);
+    }
+
+    @Override
+    public MultiLoadResult<Long, Member> loadAllById(Collection<Long> ids) {
+        return multiLoader.loadByIds(ids);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY) //트랜잭션이 없으면 바로 락이 풀리므로 의미가 없음
+    public List<Member> claimNextMembers(int n) {
+        return claim(em.createQuery("select m from Member m order by m.id", Member.class), n);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Member> claimNextMembersByAge(int age, int n) {
+        return claim(em.createQuery("select m from Member m where m.age = :age order by m.id", Member.class)
+                .setParameter("age", age), n);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Member> lockByUsername(String username, LockWait wait) {
+        return lockTimeouts.withTimeout(wait, () ->
+                em.createQuery("select m from Member m where m.username = :username", Member.class)
+                        .setParameter("username", username)
+                        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                        .setHint("javax.persistence.lock.timeout", wait.toHint())
+                        .getResultList());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Member> lockByUsername(String username) {
+        return lockByUsername(username, LockWait.timeout(lockProperties.getTimeout()));
+    }
+
+    private static List<Member> claim(TypedQuery<Member> query, int n) {
+        return query.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint("javax.persistence.lock.timeout", LockWait.skipLocked().toHint())
+                .setMaxResults(n)
+                .getResultList();
+    }
+
+    private static <T> TypedQuery<T> paged(TypedQuery<T> query, Pageable pageable) {
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query;
+    }
 }
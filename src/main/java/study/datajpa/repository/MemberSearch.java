@@ -0,0 +1,164 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import study.datajpa.dto.MemberDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 회원 동적 검색 - 조건 조합(어떤 조건이 null 이 아닌지) + 정렬마다 JPQL 을 한번만 만들어 재사용
+ * 1. 값은 항상 파라미터로 바인딩 -> 조합이 같으면 JPQL 이 같으므로 하이버네이트 쿼리 계획 캐시(QueryPlanCache)에서 찾음
+ *    (Example.of 등 Criteria 는 hibernate.criteria.literal_handling_mode=bind 로 값을 바인딩)
+ * 2. where 에는 있는 조건만 넣음 - (:p is null or ...) 로 쿼리를 하나로 만들면 인덱스를 사용하지 못함
+ * 3. 정렬은 SORT_PROPERTIES 만 허용하고 같은 속성은 처음 것만 사용, ignoreCase/nullHandling 은 허용하지 않음
+ *    -> 만들어지는 JPQL 의 종류가 조건 수, 정렬 속성 수로 제한됨
+ */
+@Component
+public class MemberSearch {
+
+    private static final Map<String, String> SORT_PROPERTIES = Map.of(
+            "id", "m.id",
+            "username", "m.username",
+            "age", "m.age",
+            "teamName", "t.name");
+
+    private enum Filter {
+        USERNAME("username", "m.username = :username", MemberSearchCondition::getUsername),
+        USERNAME_PREFIX("usernamePrefix", "m.username like :usernamePrefix escape '!'",
+                c -> likePrefix(c.getUsernamePrefix())),
+        TEAM_NAME("teamName", "t.name = :teamName", MemberSearchCondition::getTeamName),
+        AGE("age", "m.age = :age", MemberSearchCondition::getAge),
+        AGE_GOE("ageGoe", "m.age >= :ageGoe", MemberSearchCondition::getAgeGoe),
+        AGE_LOE("ageLoe", "m.age <= :ageLoe", MemberSearchCondition::getAgeLoe);
+
+        private final String parameter;
+        private final String predicate;
+        private final Function<MemberSearchCondition, Object> value;
+
+        Filter(String parameter, String predicate, Function<MemberSearchCondition, Object> value) {
+            this.parameter = parameter;
+            this.predicate = predicate;
+            this.value = value;
+        }
+    }
+
+    private final EntityManager em;
+    private final CountCache countCache;
+    private final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+
+    public MemberSearch(EntityManager em, CountCache countCache) {
+        this.em = em;
+        this.countCache = countCache;
+    }
+
+    public Page<MemberDto> search(MemberSearchCondition condition, Pageable pageable) {
+        List<Filter> filters = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (Filter filter : Filter.values()) {
+            Object value = filter.value.apply(condition);
+            if (value != null) {
+                filters.add(filter);
+                values.add(value);
+            }
+        }
+        Shape shape = shape(filters, pageable.getSort());
+
+        TypedQuery<MemberDto> query = em.createQuery(shape.select, MemberDto.class);
+        for (int i = 0; i < filters.size(); i++) {
+            query.setParameter(filters.get(i).parameter, values.get(i));
+        }
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<MemberDto> content = query.getResultList();
+
+        return countCache.page(content, pageable, shape.count, () -> {
+            TypedQuery<Long> countQuery = em.createQuery(shape.count, Long.class);
+            for (int i = 0; i < filters.size(); i++) {
+                countQuery.setParameter(filters.get(i).parameter, values.get(i));
+            }
+            return countQuery.getSingleResult();
+        }, values.toArray());
+    }
+
+    //지금까지 만들어진 JPQL 종류 수
+    public int shapeCount() {
+        return shapes.size();
+    }
+
+    private Shape shape(List<Filter> filters, Sort sort) {
+        List<Sort.Order> orders = orders(sort);
+        StringBuilder key = new StringBuilder();
+        filters.forEach(filter -> key.append(filter.ordinal()).append(','));
+        key.append('|');
+        orders.forEach(order -> key.append(order.getProperty()).append(' ').append(order.getDirection()).append(','));
+        return shapes.computeIfAbsent(key.toString(), k -> new Shape(filters, orders));
+    }
+
+    //정렬 검증 - 키에 넣을 수 있는 값은 (속성, 방향) 뿐이므로 나머지 옵션은 거부
+    private static List<Sort.Order> orders(Sort sort) {
+        Map<String, Sort.Order> orders = new LinkedHashMap<>();
+        for (Sort.Order order : sort) {
+            if (!SORT_PROPERTIES.containsKey(order.getProperty())) {
+                throw new UnsupportedSortException("unsupported sort property: " + order.getProperty()
+                        + " (supported: " + SORT_PROPERTIES.keySet() + ")");
+            }
+            if (order.isIgnoreCase() || order.getNullHandling() != Sort.NullHandling.NATIVE) {
+                throw new UnsupportedSortException("unsupported sort option: " + order);
+            }
+            orders.putIfAbsent(order.getProperty(), order); //같은 속성이 다시 오면 앞의 정렬로 이미 결정됨
+        }
+        return new ArrayList<>(orders.values());
+    }
+
+    private static String likePrefix(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    private static final class Shape {
+        private final String select;
+        private final String count;
+
+        private Shape(List<Filter> filters, List<Sort.Order> orders) {
+            StringBuilder where = new StringBuilder();
+            for (Filter filter : filters) {
+                where.append(where.length() == 0 ? " where " : " and ").append(filter.predicate);
+            }
+            this.select = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                    " from Member m left join m.team t" + where + orderBy(orders);
+            //팀 조건이 없으면 count 는 join 없이 member 만 센다
+            this.count = filters.contains(Filter.TEAM_NAME)
+                    ? "select count(m) from Member m join m.team t" + where
+                    : "select count(m) from Member m" + where;
+        }
+
+        //마지막에 id 를 넣어서 같은 값이 있어도 페이지 사이의 순서가 바뀌지 않도록
+        private static String orderBy(List<Sort.Order> orders) {
+            StringBuilder orderBy = new StringBuilder(" order by ");
+            boolean byId = false;
+            for (Sort.Order order : orders) {
+                String path = SORT_PROPERTIES.get(order.getProperty());
+                orderBy.append(path).append(order.isAscending() ? " asc, " : " desc, ");
+                byId |= path.equals("m.id");
+            }
+            if (!byId) {
+                orderBy.append("m.id asc, ");
+            }
+            return orderBy.substring(0, orderBy.length() - 2);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.repository;
+
+import lombok.Data;
+
+/**
+ * 회원 검색 조건 - null 인 조건은 사용하지 않음 (MemberSearch)
+ */
+@Data
+public class MemberSearchCondition {
+
+    private String username;
+    private String usernamePrefix; //username like 'prefix%' (인덱스 사용 가능)
+    private String teamName;
+    private Integer age;
+    private Integer ageGoe;
+    private Integer ageLoe;
+}
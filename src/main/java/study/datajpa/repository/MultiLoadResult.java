@@ -0,0 +1,31 @@
+package study.datajpa.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 여러 키로 한번에 조회한 결과
+ * content 는 입력한 키 순서대로 (같은 키가 여러번 입력되면 처음 위치에 한번만), 찾지 못한 키는 missing 으로
+ */
+public class MultiLoadResult<K, T> {
+
+    private final List<T> content;
+    private final List<K> missing;
+
+    public MultiLoadResult(List<T> content, List<K> missing) {
+        this.content = Collections.unmodifiableList(content);
+        this.missing = Collections.unmodifiableList(missing);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public List<K> getMissing() {
+        return missing;
+    }
+
+    public boolean isComplete() {
+        return missing.isEmpty();
+    }
+}
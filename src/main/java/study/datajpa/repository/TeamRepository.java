@@ -1,8 +1,46 @@
 package study.datajpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import study.datajpa.entity.Team;
 
+import java.util.List;
+
 public interface TeamRepository extends JpaRepository<Team, Long> {
 
+    //group by 로 DB 에서 집계 - 팀 수만큼의 row 만 가져옴 (Team.members, Member 를 엔티티로 읽지 않음)
+    @Query("select t.id as teamId, t.name as teamName, count(m) as memberCount," +
+            " avg(m.age) as avgAge, min(m.age) as minAge, max(m.age) as maxAge" +
+            " from Team t left join t.members m" +
+            " group by t.id, t.name" +
+            " order by t.name, t.id")
+    List<TeamStats> findTeamStats();
+
+    //나이를 width 단위 구간으로 나눈 팀별 회원 수 - 팀 수 x 구간 수 만큼의 row
+    //JPQL 은 group by 에 파라미터가 들어간 식을 select 의 식과 같은 것으로 보지 않아서 (H2 등) 네이티브 쿼리의 별칭으로 group by
+    @Query(value = "select m.team_id as teamId, m.age - mod(m.age, :width) as ageFrom, count(*) as memberCount" +
+            " from member m" +
+            " where m.team_id is not null" +
+            " group by teamId, ageFrom" +
+            " order by teamId, ageFrom",
+            nativeQuery = true)
+    List<AgeBucket> findAgeHistogram(@Param("width") int width);
+
+    //team_age_summary 로 계산 - member 대신 (팀 수 x 나이 수) 크기의 요약 테이블을 읽음 (TeamSummary)
+    //평균은 나이 x 회원 수의 합 / 회원 수, 회원이 없는 (팀, 나이) 는 join 에서 제외
+    @Query("select t.id as teamId, t.name as teamName, coalesce(sum(s.memberCount), 0) as memberCount," +
+            " 1.0 * sum(s.memberCount * s.age) / sum(s.memberCount) as avgAge, min(s.age) as minAge, max(s.age) as maxAge" +
+            " from Team t left join TeamAgeSummary s on s.teamId = t.id and s.memberCount > 0" +
+            " group by t.id, t.name" +
+            " order by t.name, t.id")
+    List<TeamStats> findTeamStatsFromSummary();
+
+    @Query(value = "select s.team_id as teamId, s.age - mod(s.age, :width) as ageFrom, sum(s.member_count) as memberCount" +
+            " from team_age_summary s" +
+            " where s.member_count > 0" +
+            " group by teamId, ageFrom" +
+            " order by teamId, ageFrom",
+            nativeQuery = true)
+    List<AgeBucket> findAgeHistogramFromSummary(@Param("width") int width);
 }
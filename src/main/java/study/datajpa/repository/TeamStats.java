@@ -0,0 +1,12 @@
+package study.datajpa.repository;
+
+//팀별 회원 수, 나이 통계 - 회원이 없는 팀은 memberCount 0, 나이는 null
+public interface TeamStats {
+
+    Long getTeamId();
+    String getTeamName();
+    Long getMemberCount();
+    Double getAvgAge();
+    Integer getMinAge();
+    Integer getMaxAge();
+}
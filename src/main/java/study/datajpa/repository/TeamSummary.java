@@ -0,0 +1,218 @@
+package study.datajpa.repository;
+
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.TeamAgeSummary;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * team_age_summary (팀, 나이별 회원 수) 유지
+ * 1. Member 저장/수정/삭제는 TeamSummaryListener 가 증감을 세션별로 모아두고 커밋 직전에 (팀, 나이) 순서로 하나씩 upsert
+ *    -> 롤백되면 반영하지 않고, 같은 트랜잭션에서 같은 (팀, 나이) 를 여러번 바꿔도 한번만 실행
+ * 2. 엔티티 이벤트가 없는 벌크 수정은 바뀐 나이 범위를 member 에서 다시 집계 (recomputeFromAge, rebuild)
+ * 3. check 로 member 와 비교, 어긋나면 rebuild (/admin/team-summary)
+ */
+@Component
+public class TeamSummary {
+
+    private static final String MYSQL_UPSERT =
+            "insert into team_age_summary (team_id, age, member_count) values (?, ?, ?)" +
+            " as new on duplicate key update member_count = team_age_summary.member_count + new.member_count";
+
+    private static final String H2_UPSERT =
+            "merge into team_age_summary t" +
+            " using (select cast(? as bigint) team_id, cast(? as int) age, cast(? as bigint) member_count) s" +
+            " on t.team_id = s.team_id and t.age = s.age" +
+            " when matched then update set t.member_count = t.member_count + s.member_count" +
+            " when not matched then insert (team_id, age, member_count) values (s.team_id, s.age, s.member_count)";
+
+    //upsert 순서 - 트랜잭션마다 같은 순서로 행 락을 잡아야 겹치는 (팀, 나이) 를 커밋하는 트랜잭션끼리 데드락이 나지 않음
+    private static final Comparator<TeamAgeSummary.Key> LOCK_ORDER =
+            Comparator.comparing(TeamAgeSummary.Key::getTeamId).thenComparingInt(TeamAgeSummary.Key::getAge);
+
+    private static final String GROUP_MEMBERS =
+            "select team_id, age, count(*) from member where team_id is not null";
+
+    private final EntityManager em;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<SessionImplementor, Map<TeamAgeSummary.Key, Long>> pending = new ConcurrentHashMap<>();
+    private volatile String upsertSql;
+
+    //엔티티 리스너가 EntityManagerFactory 생성 중에 만들어지므로 EntityManager 는 처음 사용할 때 조회
+    public TeamSummary(@Lazy EntityManager em, DataSource dataSource) {
+        this.em = em;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    //insert 직후에 호출 - 저장 후 flush 전에 바뀐 값은 이어지는 update(updated)에서 반영되므로 insert 된 값(loaded state) 기준
+    //StatelessSession 으로 저장한 회원은 영속성 컨텍스트에 없으므로 엔티티의 값
+    public void persisted(Member member) {
+        EntityEntry entry = entry(member);
+        if (entry == null) {
+            add(teamId(member.getTeam()), member.getAge(), 1);
+            return;
+        }
+        add(teamId(entry.getLoadedValue("team")), (Integer) entry.getLoadedValue("age"), 1);
+    }
+
+    //flush 중에 호출 - 마지막으로 DB 에 반영된 값(loaded state)과 비교
+    public void updated(Member member) {
+        EntityEntry entry = entry(member);
+        Long oldTeamId = teamId(entry.getLoadedValue("team"));
+        int oldAge = (Integer) entry.getLoadedValue("age");
+        Long newTeamId = teamId(member.getTeam());
+        if (Objects.equals(oldTeamId, newTeamId) && oldAge == member.getAge()) {
+            return; //username 등 다른 필드만 수정
+        }
+        add(oldTeamId, oldAge, -1);
+        add(newTeamId, member.getAge(), 1);
+    }
+
+    //em.remove 시점에 호출 - flush 되지 않은 수정은 아직 요약에 없으므로 loaded state 기준
+    public void removed(Member member) {
+        EntityEntry entry = entry(member);
+        add(teamId(entry.getLoadedValue("team")), (Integer) entry.getLoadedValue("age"), -1);
+    }
+
+    //현재 트랜잭션이 커밋될 때 반영 (StatelessSession 으로 저장한 회원 등)
+    public void add(Long teamId, int age, long delta) {
+        if (teamId == null) {
+            return; //팀이 없는 회원은 집계하지 않음
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        if (!session.isTransactionInProgress()) {
+            jdbcTemplate.update(upsertSql(), teamId, age, delta);
+            return;
+        }
+        pending.computeIfAbsent(session, s -> {
+            s.getActionQueue().registerProcess(this::flushPending); //flush 이후, 커밋 직전에 같은 커넥션으로 실행
+            s.getActionQueue().registerProcess((success, completed) -> pending.remove(completed)); //롤백되어도 제거
+            return new TreeMap<>(LOCK_ORDER);
+        }).merge(new TeamAgeSummary.Key(teamId, age), delta, Long::sum);
+    }
+
+    //age 이상인 회원만 다시 집계 - age 이상인 회원의 나이만 바꾼 벌크 수정(bulkAgePlus) 이후
+    @Transactional
+    public int recomputeFromAge(int age) {
+        discardPending(age);
+        jdbcTemplate.update("delete from team_age_summary where age >= ?", age);
+        return jdbcTemplate.update("insert into team_age_summary (team_id, age, member_count) " +
+                GROUP_MEMBERS + " and age >= ? group by team_id, age", age);
+    }
+
+    //전체를 다시 집계 - 팀이 바뀌었을 수 있는 벌크 수정 이후, 또는 check 결과가 어긋날 때
+    @Transactional
+    public int rebuild() {
+        discardPending(Integer.MIN_VALUE);
+        jdbcTemplate.update("delete from team_age_summary");
+        return jdbcTemplate.update("insert into team_age_summary (team_id, age, member_count) " +
+                GROUP_MEMBERS + " group by team_id, age");
+    }
+
+    //member 를 group by 한 결과와 요약 테이블 비교 (동시에 수정 중인 트랜잭션이 있으면 일시적으로 어긋날 수 있음)
+    @Transactional
+    public List<TeamSummaryMismatch> check() {
+        em.flush();
+        Map<TeamAgeSummary.Key, Long> expected = counts(GROUP_MEMBERS + " group by team_id, age");
+        Map<TeamAgeSummary.Key, Long> actual = counts(
+                "select team_id, age, member_count from team_age_summary where member_count <> 0");
+
+        List<TeamSummaryMismatch> result = new ArrayList<>();
+        expected.forEach((key, count) -> {
+            long summarized = actual.getOrDefault(key, 0L);
+            if (summarized != count) {
+                result.add(new TeamSummaryMismatch(key.getTeamId(), key.getAge(), count, summarized));
+            }
+        });
+        actual.forEach((key, count) -> {
+            if (!expected.containsKey(key)) {
+                result.add(new TeamSummaryMismatch(key.getTeamId(), key.getAge(), 0, count));
+            }
+        });
+        return result;
+    }
+
+    private Map<TeamAgeSummary.Key, Long> counts(String sql) {
+        Map<TeamAgeSummary.Key, Long> result = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(new TeamAgeSummary.Key(rs.getLong(1), rs.getInt(2)), rs.getLong(3));
+        });
+        return result;
+    }
+
+    private void flushPending(SessionImplementor session) {
+        Map<TeamAgeSummary.Key, Long> deltas = pending.remove(session);
+        if (deltas == null) {
+            return;
+        }
+        List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                batchArgs.add(new Object[]{key.getTeamId(), key.getAge(), delta});
+            }
+        });
+        if (!batchArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(upsertSql(), batchArgs);
+        }
+    }
+
+    //다시 집계하는 범위의 쌓인 증감은 버림 - flush 해서 member 테이블에 반영된 뒤 집계하므로 중복
+    private void discardPending(int fromAge) {
+        em.flush();
+        Map<TeamAgeSummary.Key, Long> deltas = pending.get(em.unwrap(SessionImplementor.class));
+        if (deltas != null) {
+            deltas.keySet().removeIf(key -> key.getAge() >= fromAge);
+        }
+    }
+
+    private EntityEntry entry(Member member) {
+        return em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getEntry(member);
+    }
+
+    //프록시를 초기화하지 않고 id 만 꺼냄
+    private static Long teamId(Object team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+                sql = "H2".equals(product) ? H2_UPSERT : MYSQL_UPSERT;
+            } catch (MetaDataAccessException e) {
+                sql = MYSQL_UPSERT;
+            }
+            upsertSql = sql;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * 엔티티 이벤트가 발생하지 않는 MemberRepository.bulkAgePlus 이후 바뀐 나이 범위의 팀 요약을 다시 집계
+ * (MemberBulkUpdater, MemberBulkRepository 는 직접 TeamSummary 를 호출)
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class TeamSummaryBulkAspect {
+
+    private final TeamSummary teamSummary;
+
+    @AfterReturning("execution(* study.datajpa.repository.MemberRepository.bulkAgePlus(int)) && args(age)")
+    public void recompute(int age) {
+        teamSummary.recomputeFromAge(age);
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.repository;
+
+/**
+ * 요약 테이블과 member 집계가 다른 (팀, 나이)
+ * expected : member 를 group by 한 회원 수 / actual : team_age_summary 의 회원 수
+ */
+public class TeamSummaryMismatch {
+
+    private final Long teamId;
+    private final int age;
+    private final long expected;
+    private final long actual;
+
+    public TeamSummaryMismatch(Long teamId, int age, long expected, long actual) {
+        this.teamId = teamId;
+        this.age = age;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    public Long getTeamId() {
+        return teamId;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public long getExpected() {
+        return expected;
+    }
+
+    public long getActual() {
+        return actual;
+    }
+
+    @Override
+    public String toString() {
+        return "TeamSummaryMismatch{teamId=" + teamId + ", age=" + age +
+                ", expected=" + expected + ", actual=" + actual + "}";
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.repository;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+/**
+ * 검색에서 허용하지 않는 정렬 (MemberSearch) - 요청 파라미터 문제이므로 컨트롤러에서 400 으로 응답
+ * DataAccessException 이므로 리포지토리 프록시의 예외 변환을 거쳐도 그대로 전달됨
+ */
+public class UnsupportedSortException extends InvalidDataAccessApiUsageException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedSortException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,33 @@
+package study.datajpa.repository;
+
+/**
+ * upsert 결과 - 새로 저장된 개수와 이미 있어서 수정된 개수
+ * 실행 직전에 조회한 기준이므로 동시에 같은 id 를 저장하면 정확하지 않을 수 있음
+ */
+public class UpsertResult {
+
+    private final int inserted;
+    private final int updated;
+
+    public UpsertResult(int inserted, int updated) {
+        this.inserted = inserted;
+        this.updated = updated;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public UpsertResult plus(UpsertResult other) {
+        return new UpsertResult(inserted + other.inserted, updated + other.updated);
+    }
+
+    @Override
+    public String toString() {
+        return "UpsertResult{inserted=" + inserted + ", updated=" + updated + "}";
+    }
+}
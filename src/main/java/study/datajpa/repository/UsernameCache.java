@@ -0,0 +1,115 @@
+package study.datajpa.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * id -> username 조회 결과를 서버 메모리에 짧게 캐시 (/members/{id})
+ * 1. 없는 id 도 Optional.empty() 로 캐시 (negativeTtl) -> 잘못된 id 가 반복되어도 DB 까지 가지 않음
+ * 2. 이 서버에서의 수정/삭제/저장은 UsernameCacheListener 가 바로 무효화, 다른 서버의 수정은 ttl 동안 이전 값이 보일 수 있음
+ * 3. flush 시점의 무효화는 커밋 전이므로 그 사이에 다른 스레드가 이전 값을 다시 캐시할 수 있음
+ *    -> 트랜잭션 안이면 완료된 후에 한번 더 무효화 (replica 지연으로 그 뒤에 읽은 이전 값은 ttl 동안 보일 수 있음)
+ * 벌크 수정이 발생하면 evictAll() 로 전체 무효화
+ */
+@Component
+public class UsernameCache {
+
+    private final Cache<Long, Optional<String>> cache;
+
+    public UsernameCache(@Value("${app.username-cache.ttl:5s}") Duration ttl,
+                         @Value("${app.username-cache.negative-ttl:1s}") Duration negativeTtl,
+                         @Value("${app.username-cache.maximum-size:10000}") long maximumSize) {
+        long ttlNanos = ttl.toNanos();
+        long negativeTtlNanos = negativeTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Optional<String>>() {
+                    @Override
+                    public long expireAfterCreate(Long id, Optional<String> username, long currentTime) {
+                        return username.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, Optional<String> username, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, username, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, Optional<String> username, long currentTime, long currentDuration) {
+                        return currentDuration; //읽어도 만료 시간은 그대로
+                    }
+                })
+                .build();
+    }
+
+    //캐시에 있으면 null 이 아닌 값 (없는 id 는 Optional.empty())
+    public Optional<String> getIfPresent(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    public Optional<String> get(Long id, Function<Long, Optional<String>> loader) {
+        return cache.get(id, loader);
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+        PendingEvictions pending = pendingEvictions();
+        if (pending != null) {
+            pending.ids.add(id);
+        }
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+        PendingEvictions pending = pendingEvictions();
+        if (pending != null) {
+            pending.all = true;
+        }
+    }
+
+    //트랜잭션 안이면 완료된 후에 다시 무효화할 id 를 모아두는 synchronization (트랜잭션마다 하나)
+    private PendingEvictions pendingEvictions() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingEvictions && ((PendingEvictions) synchronization).owner == this) {
+                return (PendingEvictions) synchronization;
+            }
+        }
+        PendingEvictions pending = new PendingEvictions(this);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private static final class PendingEvictions implements TransactionSynchronization {
+        private final UsernameCache owner;
+        private final Set<Long> ids = new HashSet<>();
+        private boolean all;
+
+        private PendingEvictions(UsernameCache owner) {
+            this.owner = owner;
+        }
+
+        //커밋, 롤백 구분 없이 - 무효화된 값은 다시 조회하면 됨
+        @Override
+        public void afterCompletion(int status) {
+            if (all) {
+                owner.cache.invalidateAll();
+            } else {
+                owner.cache.invalidateAll(ids);
+            }
+        }
+    }
+}
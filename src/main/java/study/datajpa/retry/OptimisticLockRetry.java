@@ -0,0 +1,79 @@
+package study.datajpa.retry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락 충돌 시 재시도 - 재시도 사이에는 지수적으로 늘어나는 범위에서 임의로 대기 (jitter)
+ * 여러 스레드가 동시에 충돌해도 같은 시점에 다시 충돌하지 않도록
+ *
+ * OptimisticLockRetry.of(5, 10, 200).execute(() -> memberService.addAge(id, 1));
+ */
+@Slf4j
+public final class OptimisticLockRetry {
+
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    private OptimisticLockRetry(int maxAttempts, long backoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public static OptimisticLockRetry of(int maxAttempts, long backoffMillis, long maxBackoffMillis) {
+        return new OptimisticLockRetry(maxAttempts, backoffMillis, maxBackoffMillis);
+    }
+
+    public static OptimisticLockRetry of(RetryOnOptimisticLock retry) {
+        return of(retry.maxAttempts(), retry.backoffMillis(), retry.maxBackoffMillis());
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get(); //바깥 트랜잭션 안에서는 재시도해도 같은 트랜잭션이므로 의미 없음
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isOptimisticLockFailure(e)) {
+                    throw e;
+                }
+                log.debug("optimistic lock failure, retry {}/{}: {}", attempt, maxAttempts - 1, e.getMessage());
+                sleep(attempt);
+            }
+        }
+    }
+
+    private void sleep(int attempt) {
+        long bound = Math.min(backoffMillis << Math.min(attempt - 1, 20), maxBackoffMillis);
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting to retry", e);
+        }
+    }
+
+    static boolean isOptimisticLockFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockingFailureException || t instanceof OptimisticLockException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.retry;
+
+import lombok.SneakyThrows;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * @RetryOnOptimisticLock 메서드를 재시도
+ * @Transactional 보다 먼저(바깥에서) 실행되어야 재시도마다 새 트랜잭션이 시작됨
+ * (트랜잭션 advice 의 기본 순서는 Ordered.LOWEST_PRECEDENCE)
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class OptimisticLockRetryAspect {
+
+    @Around("@annotation(retry)")
+    public Object retryMethod(ProceedingJoinPoint joinPoint, RetryOnOptimisticLock retry) {
+        return OptimisticLockRetry.of(retry).execute(() -> proceed(joinPoint));
+    }
+
+    @Around("@within(retry) && !@annotation(study.datajpa.retry.RetryOnOptimisticLock)")
+    public Object retryType(ProceedingJoinPoint joinPoint, RetryOnOptimisticLock retry) {
+        return OptimisticLockRetry.of(retry).execute(() -> proceed(joinPoint));
+    }
+
+    @SneakyThrows //checked 예외는 재시도하지 않고 그대로 던짐
+    private static Object proceed(ProceedingJoinPoint joinPoint) {
+        return joinPoint.proceed();
+    }
+}
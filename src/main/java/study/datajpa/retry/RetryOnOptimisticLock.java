@@ -0,0 +1,26 @@
+package study.datajpa.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 낙관적 락 충돌(다른 트랜잭션이 먼저 수정)이 나면 메서드를 처음부터 다시 실행
+ * 트랜잭션 바깥에서 재시도해야 하므로 @Transactional 과 같이 쓰거나, 트랜잭션 메서드를 호출하는 쪽에 붙인다
+ * 이미 시작된 트랜잭션 안에서 호출되면 재시도하지 않음 (바깥 트랜잭션이 롤백 대상이므로)
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnOptimisticLock {
+
+    //처음 실행을 포함한 최대 실행 횟수
+    int maxAttempts() default 5;
+
+    //n 번째 재시도 전 대기 시간은 0 ~ min(backoffMillis * 2^(n-1), maxBackoffMillis) 중 임의의 값
+    long backoffMillis() default 10;
+
+    long maxBackoffMillis() default 200;
+}
@@ -0,0 +1,78 @@
+package study.datajpa.schema;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 쿼리 하나가 테이블 하나를 읽는 방식 - 같음 조건 컬럼, 범위 조건 컬럼(처음 하나), 정렬 컬럼
+ */
+@Getter
+class AccessPattern {
+
+    private final String table;
+    private final Set<String> equalities = new LinkedHashSet<>();
+    private String range;
+    private final List<String> orderBy = new ArrayList<>();
+    private final Set<String> sources = new LinkedHashSet<>();
+
+    AccessPattern(String table, String source) {
+        this.table = table;
+        this.sources.add(source);
+    }
+
+    void addEquality(String column) {
+        equalities.add(column);
+    }
+
+    void addRange(String column) {
+        if (range == null) {
+            range = column; //인덱스에서는 첫번째 범위 조건까지만 사용
+        }
+    }
+
+    void addOrderBy(String column) {
+        orderBy.add(column);
+    }
+
+    boolean isEmpty() {
+        return equalities.isEmpty() && range == null && orderBy.isEmpty();
+    }
+
+    //같은 테이블을 같은 방식으로 읽는 쿼리는 하나로 합침
+    String key() {
+        return table + equalities + range + orderBy;
+    }
+
+    //필요한 인덱스 컬럼 순서 : 같음 조건 -> 범위 조건 (없으면 정렬)
+    List<String> indexColumns() {
+        List<String> columns = new ArrayList<>(equalities);
+        if (range != null) {
+            if (!columns.contains(range)) {
+                columns.add(range);
+            }
+        } else {
+            for (String column : orderBy) {
+                if (!columns.contains(column)) {
+                    columns.add(column);
+                }
+            }
+        }
+        return columns;
+    }
+
+    //인덱스의 앞쪽 컬럼이 같음 조건 컬럼(순서 무관) + 범위 조건 또는 정렬 컬럼과 같으면 사용 가능
+    boolean isCoveredBy(List<String> index) {
+        int n = equalities.size();
+        if (index.size() < n || !new HashSet<>(index.subList(0, n)).equals(equalities)) {
+            return false;
+        }
+        List<String> rest = index.subList(n, index.size());
+        List<String> needed = indexColumns().subList(n, indexColumns().size());
+        return rest.size() >= needed.size() && rest.subList(0, needed.size()).equals(needed);
+    }
+}
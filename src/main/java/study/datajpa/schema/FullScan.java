@@ -0,0 +1,22 @@
+package study.datajpa.schema;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * EXPLAIN 결과 테이블 전체를 읽는 쿼리
+ */
+@Getter
+public class FullScan {
+
+    private final List<String> sources;
+    private final String sql;
+    private final String plan;
+
+    FullScan(List<String> sources, String sql, String plan) {
+        this.sources = sources;
+        this.sql = sql;
+        this.plan = plan;
+    }
+}
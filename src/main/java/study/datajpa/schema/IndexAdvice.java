@@ -0,0 +1,25 @@
+package study.datajpa.schema;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 없는 인덱스와 그 인덱스가 필요한 쿼리 (리포지토리 메서드 또는 실행된 JPQL)
+ */
+@Getter
+public class IndexAdvice {
+
+    private final String table;
+    private final List<String> columns;
+    private final String ddl;
+    private final List<String> sources = new ArrayList<>();
+
+    IndexAdvice(String table, List<String> columns) {
+        this.table = table;
+        this.columns = columns;
+        this.ddl = "create index idx_" + table + "_" + String.join("_", columns)
+                + " on " + table + " (" + String.join(", ", columns) + ")";
+    }
+}
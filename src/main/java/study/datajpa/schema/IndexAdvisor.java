@@ -0,0 +1,428 @@
+package study.datajpa.schema;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.spi.QueryImplementor;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 조회 쿼리의 where / order by 를 DB 의 인덱스와 비교해서 없는 인덱스의 DDL 을 제안
+ * 1. 분석 대상 : 스프링 데이터 리포지토리의 메서드 이름 쿼리, @Query(JPQL), 네임드 쿼리
+ *    + 지금까지 실행된 JPQL (하이버네이트 Statistics - 직접 만든 리포지토리, Criteria 쿼리 포함)
+ *    네이티브 쿼리, or 조건, 서브쿼리가 있는 쿼리는 제외
+ * 2. 인덱스의 앞쪽 컬럼이 같음 조건 컬럼 + 범위 조건 컬럼(없으면 정렬 컬럼)과 같으면 사용 가능한 것으로 봄
+ *    인덱스는 엔티티의 @Table(indexes) 가 아니라 DB 메타데이터에서 읽음 (운영 DB 에 직접 만든 인덱스 포함)
+ * 3. explain 이면 읽는 방식마다 테이블의 첫 row 값으로 EXPLAIN 을 실행해서 전체 스캔을 보고 (MySQL, H2)
+ */
+@Slf4j
+@Component
+public class IndexAdvisor {
+
+    private static final Set<Part.Type> EQUALITY = EnumSet.of(
+            Part.Type.SIMPLE_PROPERTY, Part.Type.IN, Part.Type.TRUE, Part.Type.FALSE, Part.Type.IS_NULL);
+    private static final Set<Part.Type> RANGE = EnumSet.of(
+            Part.Type.GREATER_THAN, Part.Type.GREATER_THAN_EQUAL, Part.Type.LESS_THAN, Part.Type.LESS_THAN_EQUAL,
+            Part.Type.BETWEEN, Part.Type.BEFORE, Part.Type.AFTER, Part.Type.STARTING_WITH);
+
+    private static final Pattern ROOT = Pattern.compile(
+            "^(?:select .*? from|update|delete from|delete|from) ([\\w.]+) (?:as )?(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern JOIN = Pattern.compile(
+            "\\bjoin (?:fetch )?(\\w+)\\.(\\w+) (?:as )?(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE = Pattern.compile(
+            "\\bwhere (.*?)(?: group by | having | order by |$)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PREDICATE = Pattern.compile(
+            "(\\w+)\\.(\\w+) ?(=|>=|<=|>|<|in\\b|like\\b|between\\b)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ORDER_BY = Pattern.compile(
+            "\\border by (.*)$", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> KEYWORDS = Set.of("where", "order", "group", "having", "on", "with",
+            "left", "inner", "join", "fetch");
+
+    private final ApplicationContext applicationContext;
+    private final SessionFactoryImplementor sessionFactory;
+    private final DataSource dataSource;
+    private final IndexAdvisorProperties properties;
+
+    public IndexAdvisor(ApplicationContext applicationContext, EntityManagerFactory emf, DataSource dataSource,
+                        IndexAdvisorProperties properties) {
+        this.applicationContext = applicationContext;
+        this.sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        this.dataSource = dataSource;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void adviseOnStartup() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            IndexReport report = advise(properties.isExplain());
+            for (IndexAdvice advice : report.getMissingIndexes()) {
+                log.warn("Missing index for {}: {}", advice.getSources(), advice.getDdl());
+            }
+            for (FullScan fullScan : report.getFullScans()) {
+                log.warn("Full scan in {}: {}\n{}", fullScan.getSources(), fullScan.getSql(), fullScan.getPlan());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Index advisor failed", e); //점검 실패로 애플리케이션이 뜨지 않으면 안됨
+        }
+    }
+
+    public IndexReport advise(boolean explain) {
+        Map<String, AccessPattern> patterns = new LinkedHashMap<>();
+        repositoryPatterns().forEach(pattern -> merge(patterns, pattern));
+        for (String jpql : sessionFactory.getStatistics().getQueries()) {
+            jpqlPatterns(jpql, jpql).forEach(pattern -> merge(patterns, pattern));
+        }
+
+        Map<String, IndexAdvice> missing = new LinkedHashMap<>();
+        List<FullScan> fullScans = new ArrayList<>();
+        Connection connection = DataSourceUtils.getConnection(dataSource); //트랜잭션 안이면 같은 커넥션 (아직 커밋하지 않은 row 로 EXPLAIN)
+        try {
+            Map<String, List<List<String>>> indexes = new HashMap<>();
+            for (AccessPattern pattern : patterns.values()) {
+                List<List<String>> tableIndexes = indexes.get(pattern.getTable());
+                if (tableIndexes == null) {
+                    tableIndexes = readIndexes(connection, pattern.getTable());
+                    indexes.put(pattern.getTable(), tableIndexes);
+                }
+                if (tableIndexes.stream().noneMatch(pattern::isCoveredBy)) {
+                    IndexAdvice advice = missing.computeIfAbsent(pattern.getTable() + pattern.indexColumns(),
+                            key -> new IndexAdvice(pattern.getTable(), pattern.indexColumns()));
+                    advice.getSources().addAll(pattern.getSources());
+                }
+                if (explain) {
+                    FullScan fullScan = explain(connection, pattern);
+                    if (fullScan != null) {
+                        fullScans.add(fullScan);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to read index metadata", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+        return new IndexReport(new ArrayList<>(missing.values()), fullScans);
+    }
+
+    private static void merge(Map<String, AccessPattern> patterns, AccessPattern pattern) {
+        AccessPattern existing = patterns.putIfAbsent(pattern.key(), pattern);
+        if (existing != null) {
+            existing.getSources().addAll(pattern.getSources());
+        }
+    }
+
+    private List<AccessPattern> repositoryPatterns() {
+        List<AccessPattern> result = new ArrayList<>();
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            for (Method method : information.getQueryMethods()) {
+                String source = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+                result.addAll(methodPatterns(method, domainType, source));
+            }
+        }
+        return result;
+    }
+
+    private List<AccessPattern> methodPatterns(Method method, Class<?> domainType, String source) {
+        Query query = method.getAnnotation(Query.class);
+        if (query != null && query.nativeQuery()) {
+            return Collections.emptyList();
+        }
+        if (query != null && !query.value().isEmpty()) {
+            return jpqlPatterns(query.value(), source);
+        }
+        String queryName = query != null && !query.name().isEmpty()
+                ? query.name() : domainType.getSimpleName() + "." + method.getName();
+        String namedQuery = namedJpql(queryName);
+        if (namedQuery != null) {
+            return jpqlPatterns(namedQuery, source);
+        }
+        try {
+            return derivedPatterns(new PartTree(method.getName(), domainType), domainType, source);
+        } catch (RuntimeException e) {
+            return Collections.emptyList(); //메서드 이름으로 쿼리를 만들 수 없는 메서드
+        }
+    }
+
+    //@NamedQuery 의 JPQL - 없거나 네이티브 쿼리면 null (getNamedQueryRepository 는 deprecated 라 쿼리를 만들어서 꺼냄)
+    private String namedJpql(String queryName) {
+        EntityManager em = sessionFactory.createEntityManager();
+        try {
+            QueryImplementor<?> query = em.createNamedQuery(queryName).unwrap(QueryImplementor.class);
+            return query instanceof NativeQuery ? null : query.getQueryString();
+        } catch (IllegalArgumentException e) {
+            return null;
+        } finally {
+            em.close();
+        }
+    }
+
+    //메서드 이름 쿼리 - 조건이 있는 엔티티(team.name 이면 Team)마다 하나
+    private List<AccessPattern> derivedPatterns(PartTree tree, Class<?> domainType, String source) {
+        if (tree.stream().count() > 1) {
+            return Collections.emptyList(); //or 조건
+        }
+        Map<Class<?>, AccessPattern> patterns = new LinkedHashMap<>();
+        for (Part part : tree.getParts()) {
+            boolean equality = EQUALITY.contains(part.getType());
+            if (!equality && !RANGE.contains(part.getType()) || part.shouldIgnoreCase() != Part.IgnoreCaseType.NEVER) {
+                continue; //컬럼에 함수를 적용하거나 인덱스를 사용할 수 없는 조건
+            }
+            PropertyPath leaf = part.getProperty().getLeafProperty();
+            Class<?> owner = leaf.getOwningType().getType();
+            String column = column(owner.getName(), leaf.getSegment());
+            if (column == null) {
+                continue;
+            }
+            AccessPattern pattern = patterns.computeIfAbsent(owner, type -> new AccessPattern(table(type.getName()), source));
+            if (equality) {
+                pattern.addEquality(column);
+            } else {
+                pattern.addRange(column);
+            }
+        }
+        for (Sort.Order order : tree.getSort()) {
+            String column = order.getProperty().contains(".") ? null : column(domainType.getName(), order.getProperty());
+            if (column != null) {
+                patterns.computeIfAbsent(domainType, type -> new AccessPattern(table(type.getName()), source))
+                        .addOrderBy(column);
+            }
+        }
+        return nonEmpty(patterns.values());
+    }
+
+    //JPQL - 별칭마다(루트 엔티티, join 한 엔티티) 하나
+    List<AccessPattern> jpqlPatterns(String jpql, String source) {
+        String normalized = jpql.replaceAll("\\s+", " ").trim();
+        String lower = normalized.toLowerCase(Locale.ROOT);
+        Matcher root = ROOT.matcher(normalized);
+        if (!root.find() || lower.indexOf("select", 1) > 0 || lower.contains(" or ")) {
+            return Collections.emptyList(); //서브쿼리, or 조건
+        }
+
+        Map<String, String> entities = new HashMap<>(); //별칭 -> 엔티티 이름
+        String rootEntity = entityName(root.group(1));
+        if (rootEntity == null) {
+            return Collections.emptyList();
+        }
+        entities.put(root.group(2), rootEntity);
+        Matcher join = JOIN.matcher(normalized);
+        while (join.find()) {
+            String owner = entities.get(join.group(1));
+            String alias = join.group(3);
+            if (owner != null && !KEYWORDS.contains(alias.toLowerCase(Locale.ROOT))) {
+                Type type = propertyType(owner, join.group(2));
+                if (type instanceof EntityType) {
+                    entities.put(alias, ((EntityType) type).getAssociatedEntityName());
+                }
+            }
+        }
+
+        Map<String, AccessPattern> patterns = new LinkedHashMap<>(); //별칭 -> 패턴
+        Matcher where = WHERE.matcher(normalized);
+        if (where.find()) {
+            Matcher predicate = PREDICATE.matcher(where.group(1));
+            while (predicate.find()) {
+                String entity = entities.get(predicate.group(1));
+                String column = entity == null ? null : column(entity, predicate.group(2));
+                if (column == null) {
+                    continue;
+                }
+                AccessPattern pattern = patterns.computeIfAbsent(predicate.group(1),
+                        alias -> new AccessPattern(table(entity), source));
+                String operator = predicate.group(3).toLowerCase(Locale.ROOT);
+                if (operator.equals("=") || operator.equals("in")) {
+                    pattern.addEquality(column);
+                } else {
+                    pattern.addRange(column);
+                }
+            }
+        }
+        Matcher orderBy = ORDER_BY.matcher(normalized);
+        if (orderBy.find()) {
+            for (String item : orderBy.group(1).split(",")) {
+                String[] path = item.trim().split(" ")[0].split("\\.");
+                //루트 엔티티의 컬럼으로만 정렬하는 경우만 (다른 테이블 컬럼이 섞이면 인덱스로 정렬할 수 없음)
+                String column = path.length == 2 && rootEntity.equals(entities.get(path[0]))
+                        ? column(rootEntity, path[1]) : null;
+                if (column == null) {
+                    break;
+                }
+                patterns.computeIfAbsent(path[0], alias -> new AccessPattern(table(rootEntity), source))
+                        .addOrderBy(column);
+            }
+        }
+        return nonEmpty(patterns.values());
+    }
+
+    private static List<AccessPattern> nonEmpty(Iterable<AccessPattern> patterns) {
+        List<AccessPattern> result = new ArrayList<>();
+        patterns.forEach(pattern -> {
+            if (!pattern.isEmpty()) {
+                result.add(pattern);
+            }
+        });
+        return result;
+    }
+
+    private String entityName(String name) {
+        MetamodelImplementor metamodel = sessionFactory.getMetamodel();
+        String entityName = metamodel.getImportedClassName(name);
+        return metamodel.entityPersisters().containsKey(entityName) ? entityName : null;
+    }
+
+    private AbstractEntityPersister persister(String entityName) {
+        return (AbstractEntityPersister) sessionFactory.getMetamodel().entityPersister(entityName);
+    }
+
+    private Type propertyType(String entityName, String property) {
+        try {
+            return persister(entityName).getPropertyType(property);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private String table(String entityName) {
+        return persister(entityName).getTableName().toLowerCase(Locale.ROOT);
+    }
+
+    //컬럼 하나로 매핑된 속성만 (임베디드 타입, 컬렉션은 제외)
+    private String column(String entityName, String property) {
+        AbstractEntityPersister persister = persister(entityName);
+        try {
+            String[] columns = property.equals(persister.getIdentifierPropertyName())
+                    ? persister.getIdentifierColumnNames()
+                    : persister.getPropertyColumnNames(property);
+            return columns.length == 1 ? columns[0].toLowerCase(Locale.ROOT) : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    //인덱스 이름 -> 컬럼 목록 (PK, 유니크 포함)
+    private static List<List<String>> readIndexes(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        Map<String, TreeMap<Short, String>> indexes = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), name, false, true)) {
+            while (rs.next()) {
+                String column = rs.getString("COLUMN_NAME");
+                if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic || column == null) {
+                    continue;
+                }
+                indexes.computeIfAbsent(rs.getString("INDEX_NAME"), index -> new TreeMap<>())
+                        .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+            }
+        }
+        List<List<String>> result = new ArrayList<>();
+        indexes.values().forEach(columns -> result.add(new ArrayList<>(columns.values())));
+        return result;
+    }
+
+    //테이블의 첫 row 의 값을 조건에 넣어서 EXPLAIN - 테이블이 비어있으면 실행하지 않음
+    private static FullScan explain(Connection connection, AccessPattern pattern) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        boolean mysql = product.contains("mysql") || product.contains("mariadb");
+        if (!mysql && !product.contains("h2")) {
+            return null;
+        }
+
+        List<String> conditionColumns = new ArrayList<>(pattern.getEqualities());
+        if (pattern.getRange() != null) {
+            conditionColumns.add(pattern.getRange());
+        }
+        List<Object> sample = new ArrayList<>();
+        if (!conditionColumns.isEmpty()) {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "select " + String.join(", ", conditionColumns) + " from " + pattern.getTable())) {
+                ps.setMaxRows(1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    for (int i = 1; i <= conditionColumns.size(); i++) {
+                        sample.add(rs.getObject(i));
+                    }
+                }
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("select * from ").append(pattern.getTable());
+        for (int i = 0; i < conditionColumns.size(); i++) {
+            boolean range = i == pattern.getEqualities().size();
+            sql.append(i == 0 ? " where " : " and ").append(conditionColumns.get(i)).append(range ? " >= ?" : " = ?");
+        }
+        if (!pattern.getOrderBy().isEmpty()) {
+            sql.append(" order by ").append(String.join(", ", pattern.getOrderBy()));
+        }
+
+        StringBuilder plan = new StringBuilder();
+        boolean fullScan = false;
+        try (PreparedStatement ps = connection.prepareStatement("explain " + sql)) {
+            for (int i = 0; i < sample.size(); i++) {
+                ps.setObject(i + 1, sample.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData columns = rs.getMetaData();
+                while (rs.next()) {
+                    if (mysql) {
+                        //type=ALL : 테이블 전체 스캔
+                        fullScan |= "ALL".equalsIgnoreCase(rs.getString("type"));
+                        for (int i = 1; i <= columns.getColumnCount(); i++) {
+                            plan.append(columns.getColumnLabel(i)).append('=').append(rs.getString(i)).append(' ');
+                        }
+                    } else {
+                        //H2 : /* PUBLIC.MEMBER.tableScan */
+                        String text = rs.getString(1);
+                        fullScan |= text.contains(".tableScan");
+                        plan.append(text);
+                    }
+                }
+            }
+        }
+        return fullScan ? new FullScan(new ArrayList<>(pattern.getSources()), sql.toString(), plan.toString().trim()) : null;
+    }
+}
@@ -0,0 +1,22 @@
+package study.datajpa.schema;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 인덱스 점검 설정 (app.index-advisor)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.index-advisor")
+public class IndexAdvisorProperties {
+
+    //시작할 때 없는 인덱스를 경고 로그로 남김
+    private boolean enabled = false;
+
+    //시작할 때 EXPLAIN 까지 실행 (MySQL, H2)
+    private boolean explain = false;
+}
@@ -0,0 +1,17 @@
+package study.datajpa.schema;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class IndexReport {
+
+    private final List<IndexAdvice> missingIndexes;
+    private final List<FullScan> fullScans; //explain 을 실행하지 않았으면 비어있음
+
+    IndexReport(List<IndexAdvice> missingIndexes, List<FullScan> fullScans) {
+        this.missingIndexes = missingIndexes;
+        this.fullScans = fullScans;
+    }
+}
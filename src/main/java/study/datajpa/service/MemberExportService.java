@@ -0,0 +1,86 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 회원 전체를 Stream 으로 읽어서 바로 응답에 쓴다 - 전체 목록을 메모리에 올리지 않음
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    //Stream 조회는 커서를 유지해야 하므로 트랜잭션 안에서 실행
+    @Transactional(readOnly = true)
+    public long export(Format format, Writer writer) throws IOException {
+        if (format == Format.CSV) {
+            writer.write("id,username,teamName\n");
+        }
+        long count = 0;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto()) {
+            Iterator<MemberDto> it = stream.iterator();
+            while (it.hasNext()) {
+                MemberDto dto = it.next();
+                writer.write(format == Format.CSV ? toCsv(dto) : toJson(dto));
+                writer.write('\n');
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush(); //클라이언트에 바로 전송
+                }
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private String toJson(MemberDto dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toCsv(MemberDto dto) {
+        return dto.getId() + "," + csv(dto.getUsername()) + "," + csv(dto.getTeamName());
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,39 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.retry.RetryOnOptimisticLock;
+
+import javax.persistence.EntityNotFoundException;
+
+/**
+ * 같은 회원을 동시에 수정하는 경우
+ * addAge : 낙관적 락 (@Version) - 충돌하면 트랜잭션을 처음부터 재시도
+ * addAgeWithLock : 비관적 락 (select ... for update) - 락을 얻을 때까지 대기
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberService {
+
+    private final MemberRepository memberRepository;
+
+    @RetryOnOptimisticLock
+    @Transactional
+    public Member addAge(Long memberId, int delta) {
+        Member member = memberRepository.findById(memberId)
+                .orElseThrow(() -> new EntityNotFoundException("member not found: " + memberId));
+        member.setAge(member.getAge() + delta);
+        return member;
+    }
+
+    @Transactional
+    public Member addAgeWithLock(Long memberId, int delta) {
+        Member member = memberRepository.findLockById(memberId)
+                .orElseThrow(() -> new EntityNotFoundException("member not found: " + memberId));
+        member.setAge(member.getAge() + delta);
+        return member;
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.repository.AgeBucket;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.repository.TeamStats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 팀별 통계 - 집계는 DB 에서 group by 로 (쿼리 2번, 팀 수 x 나이 구간 수 만큼의 row)
+ * 같은 readOnly 트랜잭션에서 조회해서 두 쿼리가 같은 시점을 보도록 (복제본이 설정되어 있으면 복제본에서 조회)
+ * teamStats 는 요약 테이블(team_age_summary)에서, teamStatsExact 는 member 에서 집계
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TeamStatsService {
+
+    private final TeamRepository teamRepository;
+
+    public List<TeamStatsDto> teamStats(int bucketWidth) {
+        checkWidth(bucketWidth);
+        return combine(teamRepository.findTeamStatsFromSummary(), teamRepository.findAgeHistogramFromSummary(bucketWidth));
+    }
+
+    public List<TeamStatsDto> teamStatsExact(int bucketWidth) {
+        checkWidth(bucketWidth);
+        return combine(teamRepository.findTeamStats(), teamRepository.findAgeHistogram(bucketWidth));
+    }
+
+    private static void checkWidth(int bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("bucketWidth must be positive: " + bucketWidth);
+        }
+    }
+
+    private static List<TeamStatsDto> combine(List<TeamStats> teamStats, List<AgeBucket> histogram) {
+        List<TeamStatsDto> result = new ArrayList<>();
+        Map<Long, TeamStatsDto> byId = new HashMap<>();
+        for (TeamStats stats : teamStats) {
+            TeamStatsDto dto = new TeamStatsDto(stats.getTeamId(), stats.getTeamName(), stats.getMemberCount(),
+                    stats.getAvgAge(), stats.getMinAge(), stats.getMaxAge());
+            result.add(dto);
+            byId.put(dto.getTeamId(), dto);
+        }
+        for (AgeBucket bucket : histogram) {
+            TeamStatsDto dto = byId.get(bucket.getTeamId());
+            if (dto != null) { //두 쿼리 사이에 추가된 팀
+                dto.getAgeHistogram().put(bucket.getAgeFrom(), bucket.getMemberCount());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+package study.datajpa.async;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class QueryExecutorTest {
+
+    @Test
+    public void runInCallerWhenDisabled() {
+        QueryExecutor executor = new QueryExecutor(new AsyncProperties(), 10);
+
+        CompletableFuture<String> future = executor.submit(() -> Thread.currentThread().getName());
+
+        assertThat(executor.isEnabled()).isFalse();
+        assertThat(future).isCompletedWithValue(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() throws Exception {
+        AsyncProperties properties = new AsyncProperties();
+        properties.setEnabled(true);
+        properties.setQueueCapacity(1);
+        QueryExecutor executor = new QueryExecutor(properties, 1); //커넥션 풀 1개 -> 스레드 1개
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            //when : 실행 1개 + 대기 1개
+            CompletableFuture<Boolean> running = executor.submit(() -> await(release));
+            CompletableFuture<Boolean> queued = executor.submit(() -> await(release));
+
+            //then
+            assertThatThrownBy(() -> executor.submit(() -> true))
+                    .isInstanceOf(RejectedExecutionException.class);
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+            executor.destroy();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
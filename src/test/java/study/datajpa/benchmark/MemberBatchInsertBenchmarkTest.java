@@ -0,0 +1,66 @@
+package study.datajpa.benchmark;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * saveAllBatched 의 초당 insert 수 측정 (./gradlew benchmark)
+ * 기본 100만건, -Dbenchmark.rows / -Dbenchmark.batch-size 로 변경 가능
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "decorator.datasource.enabled=false" //p6spy 로깅이 측정값을 왜곡하지 않도록 끔
+})
+class MemberBatchInsertBenchmarkTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void saveAllBatched() {
+        int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+        int batchSize = Integer.getInteger("benchmark.batch-size", 1000);
+        long before = memberRepository.count();
+
+        long start = System.nanoTime();
+        int saved = memberRepository.saveAllBatched(() -> members(rows), batchSize);
+        long elapsed = System.nanoTime() - start;
+
+        double seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1);
+        System.out.printf("saveAllBatched rows=%d batchSize=%d elapsed=%.2fs throughput=%.0f rows/sec%n",
+                saved, batchSize, seconds, saved / seconds);
+
+        Assertions.assertThat(saved).isEqualTo(rows);
+        Assertions.assertThat(memberRepository.count() - before).isEqualTo(rows);
+    }
+
+    //100만건을 미리 리스트로 만들지 않고 필요할 때 생성
+    private static Iterator<Member> members(int rows) {
+        return new Iterator<Member>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < rows;
+            }
+
+            @Override
+            public Member next() {
+                i++;
+                return new Member("bench" + i, i % 100);
+            }
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package study.datajpa.benchmark;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * claimNextMembersByAge(SKIP LOCKED) 로 작업자 1명 / N명이 회원을 나눠 처리할 때의 처리량 비교 (./gradlew benchmark)
+ * 설정된 DB(MySQL 8 등)에서만 - SKIP LOCKED 를 지원하지 않는 H2 에서는 건너뜀
+ * -Dbenchmark.claim-members / -Dbenchmark.workers / -Dbenchmark.work-millis(batch 하나의 처리 시간) 로 변경 가능
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "decorator.datasource.enabled=false") //p6spy 로깅이 측정값을 왜곡하지 않도록 끔
+class MemberClaimBenchmarkTest {
+
+    private static final int BATCH_SIZE = 10;
+    private static final int QUEUED = 700;
+    private static final int DONE = 701;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> saved = new ArrayList<>();
+
+    @AfterEach
+    void deleteSaved() {
+        memberRepository.deleteAllByIdInBatch(saved);
+    }
+
+    @Test
+    public void claimInParallel() throws Exception {
+        assumeTrue(entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().supportsSkipLocked(), "SKIP LOCKED not supported");
+        int members = Integer.getInteger("benchmark.claim-members", 1000);
+        int workers = Integer.getInteger("benchmark.workers", 4);
+        long workMillis = Long.getLong("benchmark.work-millis", 20);
+
+        for (int n : new int[]{1, workers}) {
+            memberRepository.saveAll(IntStream.range(0, members)
+                            .mapToObj(i -> new Member("claimBench" + i, QUEUED))
+                            .collect(Collectors.toList()))
+                    .forEach(member -> saved.add(member.getId()));
+
+            long start = System.nanoTime();
+            Set<Long> processed = claimAll(n, workMillis);
+            long elapsed = System.nanoTime() - start;
+
+            double seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1);
+            System.out.printf("claimNextMembersByAge members=%d workers=%d batchSize=%d workMillis=%d elapsed=%.2fs throughput=%.0f members/sec%n",
+                    members, n, BATCH_SIZE, workMillis, seconds, members / seconds);
+            Assertions.assertThat(processed).hasSize(members);
+        }
+    }
+
+    private Set<Long> claimAll(int workers, long workMillis) throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Set<Long> processed = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(executor.submit(() -> {
+                    while (true) {
+                        Integer claimed = tx.execute(status -> {
+                            List<Member> batch = memberRepository.claimNextMembersByAge(QUEUED, BATCH_SIZE);
+                            batch.forEach(member -> {
+                                processed.add(member.getId());
+                                member.setAge(DONE);
+                            });
+                            sleep(workMillis); //처리 시간
+                            return batch.size();
+                        });
+                        if (claimed == 0) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return processed;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.datasource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.sql.DataSource;
+
+/**
+ * 내장 H2 두개를 primary / 복제본으로 사용
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "app.datasource.replicas[0].url=jdbc:h2:mem:replica;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.datasource.replicas[0].username=sa",
+        "app.datasource.replicas[0].password="
+})
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void routeByReadOnly() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String writeDatabase = readWrite.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+        String readDatabase = readOnly.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+
+        Assertions.assertThat(writeDatabase).isEqualToIgnoringCase("primary");
+        Assertions.assertThat(readDatabase).isEqualToIgnoringCase("replica");
+    }
+
+    @Test
+    public void readOnlyRepositoryMethodUsesReplica() {
+        //복제본에는 테이블이 없으므로 readOnly 트랜잭션의 조회는 실패해야 함
+        Assertions.assertThatThrownBy(() -> memberRepository.findReadOnlyByUsername("user1"))
+                .getRootCause().hasMessageContaining("MEMBER");
+
+        //쓰기 트랜잭션은 primary 로
+        Assertions.assertThat(memberRepository.save(new Member("routing", 10)).getId()).isNotNull();
+    }
+}
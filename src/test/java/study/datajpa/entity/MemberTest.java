@@ -4,7 +4,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.audit.BatchJobAuditorResolver;
 import study.datajpa.repository.MemberRepository;
 
 import javax.persistence.EntityManager;
@@ -25,6 +29,9 @@ class MemberTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
     @Test
     public void testEntity() {
         Team teamA = new Team("teamA");
@@ -79,4 +86,37 @@ class MemberTest {
         System.out.println("findMember.getCreatedBy = " + findMember.getCreatedBy());
         System.out.println("findMember.getLastModifiedBy = " + findMember.getLastModifiedBy());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Rollback
+    public void auditorPerUnitOfWork() {
+        //given
+        Member member1 = memberRepository.save(new Member("auditor1"));
+        Member member2 = memberRepository.save(new Member("auditor2"));
+        em.flush();
+
+        //then
+        //같은 트랜잭션에서는 수행자를 한번만 찾아서 재사용
+        assertNotNull(member1.getCreatedBy());
+        assertEquals(member1.getCreatedBy(), member2.getCreatedBy());
+        assertEquals(member1.getCreatedBy(), member2.getLastModifiedBy());
+    }
+
+    @Test
+    public void auditorFromBatchJob() {
+        //트랜잭션 밖에서 배치 작업 이름을 지정하고 저장
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Member member;
+        BatchJobAuditorResolver.Binding binding = BatchJobAuditorResolver.bind("nightly-member-job");
+        try {
+            member = transactionTemplate.execute(status -> memberRepository.save(new Member("auditor3")));
+        } finally {
+            binding.close();
+        }
+
+        assertEquals("nightly-member-job", member.getCreatedBy());
+        transactionTemplate.executeWithoutResult(status -> memberRepository.deleteById(member.getId()));
+    }
+}
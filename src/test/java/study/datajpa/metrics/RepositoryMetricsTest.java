@@ -0,0 +1,47 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    public void recordRowsPerMethod() {
+        memberRepository.save(new Member("metrics1", 550));
+        memberRepository.save(new Member("metrics2", 550));
+
+        //when
+        memberRepository.findListByAge(550, null);
+
+        //then
+        DistributionSummary rows = registry.get("repository.rows")
+                .tag("repository", "MemberRepository")
+                .tag("method", "findListByAge")
+                .summary();
+        Assertions.assertThat(rows.count()).isEqualTo(1);
+        Assertions.assertThat(rows.totalAmount()).isEqualTo(2);
+
+        DistributionSummary statements = registry.get("repository.statements")
+                .tag("method", "findListByAge")
+                .summary();
+        Assertions.assertThat(statements.totalAmount()).isGreaterThanOrEqualTo(1); //auto flush + select
+
+        Assertions.assertThat(registry.find("spring.data.repository.invocations")
+                .tag("method", "findListByAge").timer()).isNotNull();
+    }
+}
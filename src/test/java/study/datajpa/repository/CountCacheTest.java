@@ -0,0 +1,77 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CountCacheTest {
+
+    private final CountCache countCache = new CountCache(Duration.ofMinutes(1), 100);
+    private final AtomicLong counter = new AtomicLong();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void cacheOutsideTransaction() {
+        assertThat(countCache.count("q", counter::incrementAndGet)).isEqualTo(1);
+        assertThat(countCache.count("q", counter::incrementAndGet)).isEqualTo(1);
+        assertThat(countCache.count("q", counter::incrementAndGet, 10)).isEqualTo(2); //파라미터가 다르면 다른 키
+
+        countCache.evictAll();
+        assertThat(countCache.count("q", counter::incrementAndGet)).isEqualTo(3);
+    }
+
+    @Test
+    public void discardCountOfRolledBackTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(countCache.count("q", counter::incrementAndGet)).isEqualTo(1);
+        assertThat(countCache.count("q", counter::incrementAndGet)).isEqualTo(1); //트랜잭션 안에서는 재사용
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(countCache.count("q", counter::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    public void cacheCountAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(countCache.count("q", counter::incrementAndGet)).isEqualTo(1);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(countCache.count("q", counter::incrementAndGet)).isEqualTo(1);
+    }
+
+    @Test
+    public void evictAgainAfterCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+        countCache.evictAll(); //벌크 수정
+
+        //커밋 전에 다른 스레드가 이전 값을 캐시
+        Thread reader = new Thread(() -> countCache.count("q", counter::incrementAndGet));
+        reader.start();
+        assertThatCode(reader::join).doesNotThrowAnyException();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(countCache.count("q", counter::incrementAndGet)).isEqualTo(2);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+}
@@ -1,10 +1,14 @@
 package study.datajpa.repository;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import study.datajpa.entity.Item;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -13,9 +17,35 @@ class ItemRepositoryTest {
     @Autowired
     ItemRepository itemRepository;
 
+    //upsertAll 이 커밋한 Item - 다른 테스트에 남지 않도록 테스트가 끝나면 삭제
+    private final List<String> committed = new ArrayList<>();
+
+    @AfterEach
+    void deleteCommitted() {
+        itemRepository.deleteAll(itemRepository.findAllById(committed)); //중간에 실패했으면 없는 id 가 있을 수 있음
+    }
+
     @Test
     public void save() {
         Item item = new Item("A");
         itemRepository.save(item);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void upsertAll() {
+        committed.addAll(List.of("upsert-1", "upsert-2", "upsert-3"));
+
+        //given
+        UpsertResult first = itemRepository.upsertAll(List.of(new Item("upsert-1"), new Item("upsert-2")));
+
+        //when
+        UpsertResult second = itemRepository.upsertAll(List.of(new Item("upsert-2"), new Item("upsert-3"), new Item("upsert-3")));
+
+        //then
+        assertEquals(2, first.getInserted());
+        assertEquals(0, first.getUpdated());
+        assertEquals(1, second.getInserted());
+        assertEquals(1, second.getUpdated());
+        assertTrue(itemRepository.findById("upsert-3").isPresent());
+    }
+}
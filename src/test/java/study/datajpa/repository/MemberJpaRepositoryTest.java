@@ -5,10 +5,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
 
+import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,6 +23,24 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CountCache countCache;
+
+    @Autowired
+    UsernameCache usernameCache;
+
+    @Autowired
+    TeamSummary teamSummary;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
     @Test
     public void testMember() {
         Member member = new Member("memberA");
@@ -122,4 +143,64 @@ class MemberJpaRepositoryTest {
         //then
         Assertions.assertThat(resultCount).isEqualTo(3);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void bulkUpdateKeepsPersistenceContext() {
+        Member younger = memberJpaRepository.save(new Member("bulk1", 560));
+        Member older1 = memberJpaRepository.save(new Member("bulk2", 561));
+        Member older2 = memberJpaRepository.save(new Member("bulk3", 562));
+        Member older3 = memberJpaRepository.save(new Member("bulk4", 563));
+
+        //id 범위를 2 로 나눠서 여러번 수정
+        MemberBulkUpdater bulkUpdater = new MemberBulkUpdater(em, transactionManager, countCache, usernameCache, teamSummary, 2);
+
+        //when
+        int resultCount = bulkUpdater.agePlus(561);
+
+        //then
+        Assertions.assertThat(resultCount).isEqualTo(3);
+        //clear 되지 않았으므로 같은 인스턴스가 그대로 관리되고, 수정된 회원만 refresh
+        Assertions.assertThat(em.contains(younger)).isTrue();
+        Assertions.assertThat(younger.getAge()).isEqualTo(560);
+        Assertions.assertThat(older1.getAge()).isEqualTo(562);
+        Assertions.assertThat(older2.getAge()).isEqualTo(563);
+        Assertions.assertThat(older3.getAge()).isEqualTo(564);
+        Assertions.assertThat(memberJpaRepository.find(older1.getId())).isSameAs(older1);
+    }
+
+    @Test
+    public void statelessBulk() {
+        //when
+        int inserted = memberBulkRepository.insertAll(List.of(
+                new Member("stateless1", 570), new Member("stateless2", 570), new Member("stateless3", 571)));
+
+        //StatelessSession 은 엔티티 리스너를 거치지 않지만 auditing 컬럼은 채워짐
+        List<Member> members = em.createQuery("select m from Member m where m.username like 'stateless%'", Member.class)
+                .getResultList();
+        Assertions.assertThat(inserted).isEqualTo(3);
+        Assertions.assertThat(members).hasSize(3).allSatisfy(m -> {
+            Assertions.assertThat(m.getCreatedBy()).isNotNull();
+            Assertions.assertThat(m.getCreatedDate()).isNotNull();
+            Assertions.assertThat(m.getLastModifiedDate()).isNotNull();
+        });
+
+        long updated = memberBulkRepository.updateEach(2, m -> {
+            if (m.getAge() != 570) {
+                return false;
+            }
+            m.setAge(572);
+            return true;
+        });
+        AtomicLong age572 = new AtomicLong();
+        long scanned = memberBulkRepository.forEach(2, m -> {
+            if (m.getAge() == 572) {
+                age572.incrementAndGet();
+            }
+        });
+
+        //then
+        Assertions.assertThat(updated).isEqualTo(2);
+        Assertions.assertThat(age572.get()).isEqualTo(2);
+        Assertions.assertThat(scanned).isEqualTo(memberJpaRepository.count());
+    }
+}
@@ -0,0 +1,187 @@
+package study.datajpa.repository;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 여러 트랜잭션이 동시에 락을 거는 테스트 - 테스트 트랜잭션 없이 작업자마다 트랜잭션을 직접 시작
+ */
+@SpringBootTest
+class MemberLockTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    //커밋된 회원 - 다른 테스트에 남지 않도록 테스트가 끝나면 삭제
+    private final List<Member> committed = new ArrayList<>();
+
+    @AfterEach
+    void deleteCommitted() {
+        memberRepository.deleteAllById(committed.stream().map(Member::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void claimNextMembers() {
+        committed.addAll(memberRepository.saveAll(IntStream.range(0, 5)
+                .mapToObj(i -> new Member("claim" + i, 600))
+                .collect(Collectors.toList())));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        //when
+        List<Member> claimed = tx.execute(status -> memberRepository.claimNextMembersByAge(600, 3));
+
+        //then
+        Assertions.assertThat(claimed).extracting(Member::getUsername).containsExactly("claim0", "claim1", "claim2");
+    }
+
+    //NOWAIT 을 지원하는 DB(MySQL 8 등)에서만
+    @Test
+    public void nowait() throws Exception {
+        assumeTrue(dialect().supportsNoWait(), "NOWAIT not supported");
+        committed.add(memberRepository.save(new Member("nowait", 601)));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> tx.executeWithoutResult(status -> {
+                memberRepository.lockByUsername("nowait", LockWait.forever());
+                locked.countDown();
+                await(release);
+            }));
+            await(locked);
+
+            //when
+            long start = System.nanoTime();
+            Assertions.assertThatThrownBy(() -> tx.execute(status -> memberRepository.lockByUsername("nowait", LockWait.nowait())))
+                    .isInstanceOf(PessimisticLockingFailureException.class);
+
+            //then
+            Assertions.assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    //작업자 N 명이 서로 다른 회원을 가져가서 동시에 처리 - SKIP LOCKED 를 지원하는 DB(MySQL 8 등)에서만
+    //처리 시간은 MemberClaimBenchmarkTest 에서 측정
+    @Test
+    public void claimInParallel() throws Exception {
+        assumeTrue(dialect().supportsSkipLocked(), "SKIP LOCKED not supported");
+
+        int members = 200;
+        int workers = 4;
+        committed.addAll(memberRepository.saveAll(IntStream.range(0, members)
+                .mapToObj(i -> new Member("queue" + i, 602))
+                .collect(Collectors.toList())));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Map<Long, Integer> processed = new ConcurrentHashMap<>();
+        //모든 작업자가 첫 batch 의 락을 잡은 채로 만남 - 다른 작업자의 락을 기다린다면 시간 초과로 실패
+        CyclicBarrier firstBatchClaimed = new CyclicBarrier(workers);
+        List<Set<Long>> firstBatches = Collections.synchronizedList(new ArrayList<>());
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(executor.submit(() -> {
+                    boolean first = true;
+                    while (true) {
+                        boolean awaitOthers = first;
+                        List<Member> batch = tx.execute(status -> {
+                            List<Member> claimed = memberRepository.claimNextMembersByAge(602, 10);
+                            if (awaitOthers) {
+                                firstBatches.add(claimed.stream().map(Member::getId).collect(Collectors.toSet()));
+                                await(firstBatchClaimed);
+                            }
+                            claimed.forEach(member -> member.setAge(603)); //처리 완료 -> 다음 조회에서 빠짐
+                            return claimed;
+                        });
+                        first = false;
+                        if (batch.isEmpty()) {
+                            return null;
+                        }
+                        batch.forEach(member -> processed.merge(member.getId(), 1, Integer::sum));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        //같은 시점에 락을 잡고 있던 batch 는 서로 겹치지 않음
+        Assertions.assertThat(firstBatches).hasSize(workers).allSatisfy(batch -> Assertions.assertThat(batch).hasSize(10));
+        Assertions.assertThat(firstBatches.stream().flatMap(Set::stream).collect(Collectors.toList()))
+                .doesNotHaveDuplicates();
+        //모든 회원이 정확히 한번씩 처리됨
+        Assertions.assertThat(processed).hasSize(members).allSatisfy((id, count) -> Assertions.assertThat(count).isOne());
+    }
+
+    private Dialect dialect() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (BrokenBarrierException | TimeoutException e) {
+            throw new IllegalStateException("workers did not hold their batches at the same time", e);
+        }
+    }
+}
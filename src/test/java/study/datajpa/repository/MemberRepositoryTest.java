@@ -1,21 +1,34 @@
 package study.datajpa.repository;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.metrics.StatementRecorder;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @SpringBootTest
 @Transactional
@@ -28,9 +41,35 @@ class MemberRepositoryTest {
     @Autowired
     TeamRepository teamRepository;
 
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    UsernameCache usernameCache;
+
+    @Autowired
+    MemberSearch memberSearch;
+
     @PersistenceContext
     EntityManager em;
 
+    //클래스의 @Rollback(false) 는 기존 테스트용 - 추가한 테스트는 @Rollback 으로 되돌림
+    //NOT_SUPPORTED 테스트가 커밋한 회원, 팀 - 다른 테스트에 남지 않도록 테스트가 끝나면 삭제
+    private final List<Member> committedMembers = new ArrayList<>();
+    private final List<Team> committedTeams = new ArrayList<>();
+
+    @AfterEach
+    void deleteCommitted() {
+        if (committedMembers.isEmpty() && committedTeams.isEmpty()) {
+            return;
+        }
+        //엔티티 단위로 삭제 - 리스너(username 캐시, 팀 요약)와 2차 캐시도 같이 반영
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.deleteAllById(committedMembers.stream().map(Member::getId).collect(Collectors.toList()));
+            teamRepository.deleteAllById(committedTeams.stream().map(Team::getId).collect(Collectors.toList()));
+        });
+    }
+
     @Test
     public void testMember() {
         
@@ -231,6 +270,110 @@ class MemberRepositoryTest {
         Assertions.assertThat(content_slice.size()).isEqualTo(3);
     }
 
+    @Test
+    @Rollback
+    public void keysetPaging() {
+        //다른 테스트 데이터와 섞이지 않도록 별도의 나이 사용
+        int age = 500;
+        memberRepository.save(new Member("keyset1", age));
+        memberRepository.save(new Member("keyset2", age));
+        memberRepository.save(new Member("keyset3", age));
+        memberRepository.save(new Member("keyset3", age));
+        memberRepository.save(new Member("keyset4", age));
+
+        //when
+        KeysetWindow<Member> first = memberRepository.findWindowByAge(age, null, 3);
+        KeysetWindow<Member> second = memberRepository.findWindowByAge(age, KeysetCursor.decode(first.getNextCursor()), 3);
+
+        //then
+        Assertions.assertThat(first.getContent()).extracting("username")
+                .containsExactly("keyset4", "keyset3", "keyset3");
+        Assertions.assertThat(first.hasNext()).isTrue();
+
+        Assertions.assertThat(second.getContent()).extracting("username")
+                .containsExactly("keyset2", "keyset1");
+        Assertions.assertThat(second.hasNext()).isFalse();
+        Assertions.assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    @Rollback
+    public void keysetPagingNullUsername() {
+        int age = 501;
+        memberRepository.save(new Member("keysetNull1", age));
+        memberRepository.save(new Member("keysetNull2", age));
+        Member null1 = memberRepository.save(new Member(null, age));
+        Member null2 = memberRepository.save(new Member(null, age));
+        Member null3 = memberRepository.save(new Member(null, age));
+
+        //when : null 구간에 걸친 페이지, null 구간 안에서 시작하는 페이지
+        KeysetWindow<Member> first = memberRepository.findWindowByAge(age, null, 3);
+        KeysetWindow<Member> second = memberRepository.findWindowByAge(age, KeysetCursor.decode(first.getNextCursor()), 3);
+
+        //then : username desc 다음에 null 을 id desc 로
+        Assertions.assertThat(first.getContent()).extracting("username")
+                .containsExactly("keysetNull2", "keysetNull1", null);
+        Assertions.assertThat(first.getContent().get(2).getId()).isEqualTo(null3.getId());
+        Assertions.assertThat(second.getContent()).extracting("id")
+                .containsExactly(null2.getId(), null1.getId());
+        Assertions.assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    @Rollback
+    public void pagingCountCache() {
+        int age = 510;
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("countCache" + i, age));
+        }
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
+
+        //when
+        Page<Member> page = memberRepository.findPageByAge(age, pageRequest);
+        memberRepository.save(new Member("countCache5", age));
+        em.flush();
+        Page<Member> cached = memberRepository.findPageByAge(age, pageRequest);
+
+        //then
+        Assertions.assertThat(page.getContent()).extracting("username")
+                .containsExactly("countCache4", "countCache3", "countCache2");
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(5);
+        Assertions.assertThat(cached.getTotalElements()).isEqualTo(5); //ttl 동안은 캐시된 count 를 사용
+
+        //벌크 수정이 일어나면 캐시가 무효화됨
+        memberRepository.bulkAgePlus(Integer.MAX_VALUE);
+        Assertions.assertThat(memberRepository.findPageByAge(age, pageRequest).getTotalElements()).isEqualTo(6);
+
+        //첫 페이지가 다 차지 않으면 count 쿼리 없이 content 크기로 계산
+        Page<Member> notFull = memberRepository.findPageByAge(age, PageRequest.of(0, 10));
+        Assertions.assertThat(notFull.getTotalElements()).isEqualTo(6);
+    }
+
+    @Test
+    @Rollback
+    public void memberDtoPage() {
+        Team team = teamRepository.save(new Team("dtoTeam"));
+        memberRepository.save(new Member("dto1", 540, team));
+        memberRepository.save(new Member("dto2", 540));
+        em.flush();
+        em.clear();
+
+        //when
+        Page<MemberDto> page = memberRepository.findMemberDtoPage(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id")));
+
+        //then
+        Assertions.assertThat(page.getContent()).extracting("username").containsExactly("dto2", "dto1");
+        Assertions.assertThat(page.getContent()).extracting("teamName").containsExactly(null, "dtoTeam");
+        Assertions.assertThat(page.hasNext()).isTrue();
+
+        //DTO 의 속성으로 정렬 (teamName -> t.name), 없는 속성은 400 으로 응답할 수 있는 예외
+        Page<MemberDto> byTeamName = memberRepository.findMemberDtoPage(
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "teamName")));
+        Assertions.assertThat(byTeamName.getContent()).extracting("teamName").doesNotContainNull();
+        Assertions.assertThatThrownBy(() -> memberRepository.findMemberDtoPage(PageRequest.of(0, 2, Sort.by("team"))))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
     @Test
     public void bulkUpdate() {
         memberRepository.save(new Member("member1", 10));
@@ -285,6 +428,90 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //2차 캐시는 커밋된 후에 반영되므로 테스트 트랜잭션 없이 확인
+    public void secondLevelCache() {
+        //벌크 수정이 이 테스트의 회원만 바꾸도록 다른 테스트가 쓰지 않는 가장 큰 나이 사용
+        int age = Integer.MAX_VALUE - 1;
+        Team team = teamRepository.save(new Team("cacheTeam"));
+        committedTeams.add(team);
+        Member member = memberRepository.save(new Member("cacheMember", age, team));
+        committedMembers.add(member);
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        long hitCount = statistics.getSecondLevelCacheHitCount();
+
+        //when
+        Member findMember = memberRepository.findById(member.getId()).get();
+        Team findTeam = teamRepository.findById(team.getId()).get();
+
+        //then
+        Assertions.assertThat(findMember.getUsername()).isEqualTo("cacheMember");
+        Assertions.assertThat(findTeam.getName()).isEqualTo("cacheTeam");
+        Assertions.assertThat(statistics.getSecondLevelCacheHitCount() - hitCount).isEqualTo(2); //member, team
+
+        //벌크 수정을 하면 Member region 이 비워져서 변경된 값을 다시 조회
+        memberRepository.bulkAgePlus(age);
+        Member bulkUpdated = memberRepository.findById(member.getId()).get();
+        Assertions.assertThat(bulkUpdated.getAge()).isEqualTo(age + 1);
+    }
+
+    @Test
+    @Rollback
+    public void streamMemberDto() {
+        Team team = teamRepository.save(new Team("streamTeam"));
+        memberRepository.save(new Member("stream1", 530, team));
+        memberRepository.save(new Member("stream2", 530));
+        em.flush();
+        em.clear();
+
+        //when
+        List<MemberDto> result;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto()) {
+            result = stream.filter(dto -> dto.getUsername().startsWith("stream"))
+                    .collect(Collectors.toList());
+        }
+        long custom;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberCustom()) {
+            custom = stream.filter(dto -> dto.getUsername().startsWith("stream")).count();
+        }
+
+        //then
+        Assertions.assertThat(result).extracting("teamName").containsExactlyInAnyOrder("streamTeam", null);
+        Assertions.assertThat(custom).isEqualTo(2);
+        Set<?> managed = em.unwrap(Session.class).getStatistics().getEntityKeys();
+        Assertions.assertThat(managed).extracting("entityName").doesNotContain(Member.class.getName()); //member 는 준영속
+    }
+
+    @Test
+    @Rollback
+    public void detectNPlusOne() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        memberRepository.save(new Member("nPlusOne", 10, teamA));
+        memberRepository.save(new Member("nPlusOne", 10, teamB));
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+
+        //지연 로딩 : 회원 조회 1번 + 팀 조회 (@BatchSize 로 N번이 아닌 1번)
+        try (StatementRecorder recorder = StatementRecorder.start()) {
+            for (Member member : memberRepository.findListByUsername("nPlusOne")) {
+                member.getTeam().getName();
+            }
+            recorder.assertCount(2);
+        }
+        em.clear();
+
+        //EntityGraph : 한번에 조회
+        try (StatementRecorder recorder = StatementRecorder.start()) {
+            for (Member member : memberRepository.findEntityGraphByUsername("nPlusOne")) {
+                member.getTeam().getName();
+            }
+            recorder.assertCount(1);
+        }
+    }
+
     @Test
     public void queryHint() {
         Member member1 = memberRepository.save(new Member("member1", 10));
@@ -391,4 +618,222 @@ class MemberRepositoryTest {
 //            System.out.println("memberProjection = " + memberProjection.getTeamName());
 //        }
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //트랜잭션 밖에서 조각별로 병렬 조회
+    public void multiLoad() {
+        List<Member> saved = memberRepository.saveAll(List.of(
+                new Member("multi1", 580), new Member("multi2", 580), new Member("multi3", 580),
+                new Member("multi4", 580), new Member("multi5", 580)));
+        committedMembers.addAll(saved);
+        MemberMultiLoader loader = new MemberMultiLoader(em, transactionManager, 2, 2);
+
+        try {
+            //when
+            MultiLoadResult<String, Member> byUsername =
+                    loader.loadByUsernames(List.of("multi5", "multi1", "none", "multi3", "multi2", "multi1", "multi4"));
+            MultiLoadResult<Long, Member> byId =
+                    memberRepository.loadAllById(List.of(saved.get(2).getId(), -1L, saved.get(0).getId()));
+
+            //then
+            Assertions.assertThat(byUsername.getContent()).extracting(Member::getUsername)
+                    .containsExactly("multi5", "multi1", "multi3", "multi2", "multi4");
+            Assertions.assertThat(byUsername.getMissing()).containsExactly("none");
+            Assertions.assertThat(byId.getContent()).extracting(Member::getUsername)
+                    .containsExactly("multi3", "multi1");
+            Assertions.assertThat(byId.getMissing()).containsExactly(-1L);
+        } finally {
+            loader.destroy();
+        }
+    }
+
+    @Test
+    @Rollback
+    public void batchFetchTeam() {
+        for (int i = 0; i < 5; i++) {
+            Team team = teamRepository.save(new Team("batchTeam" + i));
+            memberRepository.save(new Member("batch" + i, 590, team));
+            memberRepository.save(new Member("batch" + i, 590, team));
+        }
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+
+        //회원 페이지 조회 1번 + 페이지의 팀 5개를 in 절로 1번
+        try (StatementRecorder recorder = StatementRecorder.start()) {
+            List<Member> members = memberRepository.findSliceByAge(590, PageRequest.of(0, 10, Sort.by("id"))).getContent();
+            for (Member member : members) {
+                member.getTeam().getName();
+            }
+            Assertions.assertThat(members).hasSize(10);
+            recorder.assertCount(2);
+        }
+    }
+
+    @Test
+    @Rollback
+    public void batchFetchMembers() {
+        for (int i = 0; i < 5; i++) {
+            Team team = teamRepository.save(new Team("batchMembers" + i));
+            memberRepository.save(new Member("batchMembers" + i, 591, team));
+            memberRepository.save(new Member("batchMembers" + i, 591, team));
+        }
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+
+        //팀 조회 1번 + 팀 5개의 members 컬렉션을 in 절로 1번
+        try (StatementRecorder recorder = StatementRecorder.start()) {
+            List<Team> teams = em.createQuery("select t from Team t where t.name like 'batchMembers%'", Team.class)
+                    .getResultList();
+            int members = 0;
+            for (Team team : teams) {
+                members += team.getMembers().size();
+            }
+            Assertions.assertThat(members).isEqualTo(10);
+            recorder.assertCount(2);
+        }
+    }
+
+    @Test
+    @Rollback
+    public void usernameCache() {
+        Member member = memberRepository.save(new Member("usernameCache", 630));
+        em.flush();
+        Long id = member.getId();
+
+        //없는 id 도 캐시 - 두번째부터는 쿼리가 나가지 않음
+        try (StatementRecorder recorder = StatementRecorder.start()) {
+            Assertions.assertThat(usernameCache.get(-630L, memberRepository::findUsernameById)).isEmpty();
+            Assertions.assertThat(usernameCache.get(-630L, memberRepository::findUsernameById)).isEmpty();
+            Assertions.assertThat(usernameCache.get(id, memberRepository::findUsernameById)).contains("usernameCache");
+            Assertions.assertThat(usernameCache.get(id, memberRepository::findUsernameById)).contains("usernameCache");
+            recorder.assertCount(2);
+        }
+
+        //수정하면 엔티티 리스너가 캐시에서 제거
+        member.setUsername("usernameCache2");
+        em.flush();
+        Assertions.assertThat(usernameCache.getIfPresent(id)).isNull();
+        Assertions.assertThat(usernameCache.get(id, memberRepository::findUsernameById)).contains("usernameCache2");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //커밋된 후의 무효화 확인
+    public void usernameCacheEvictedAfterCommit() {
+        Member member = memberRepository.save(new Member("afterCommit", 631));
+        committedMembers.add(member);
+        Long id = member.getId();
+
+        //when : flush 에서 무효화된 뒤, 커밋 전에 다른 스레드가 이전 값을 다시 캐시
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.findById(id).get().setUsername("afterCommit2");
+            em.flush();
+            usernameCache.get(id, i -> Optional.of("afterCommit"));
+        });
+
+        //then : 커밋된 후에 한번 더 무효화되어 새 값을 조회
+        Assertions.assertThat(usernameCache.getIfPresent(id)).isNull();
+        Assertions.assertThat(usernameCache.get(id, memberRepository::findUsernameById)).contains("afterCommit2");
+    }
+
+    @Test
+    @Rollback
+    public void search() {
+        Team teamA = teamRepository.save(new Team("searchA"));
+        Team teamB = teamRepository.save(new Team("searchB"));
+        memberRepository.save(new Member("search1", 640, teamA));
+        memberRepository.save(new Member("search2", 641, teamA));
+        memberRepository.save(new Member("search3", 642, teamB));
+        memberRepository.save(new Member("search_4", 643));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("search");
+        condition.setAgeGoe(641);
+        Page<MemberDto> page = memberRepository.search(condition, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "age")));
+        Assertions.assertThat(page.getContent()).extracting("username").containsExactly("search_4", "search3");
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(3);
+
+        //like 의 _ 는 문자 그대로
+        condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("search_");
+        Assertions.assertThat(memberRepository.search(condition, PageRequest.of(0, 10)).getContent())
+                .extracting("username").containsExactly("search_4");
+
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("searchA");
+        Assertions.assertThat(memberRepository.search(byTeam, PageRequest.of(0, 10)).getContent())
+                .extracting("teamName").containsOnly("searchA").hasSize(2);
+
+        //정해진 속성 외의 정렬은 허용하지 않음
+        Assertions.assertThatThrownBy(() -> memberRepository.search(byTeam, PageRequest.of(0, 10, Sort.by("createdBy"))))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    @Test
+    @Rollback
+    public void searchReusesQueryPlan() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(650);
+        memberRepository.search(condition, PageRequest.of(0, 10));
+        int shapes = memberSearch.shapeCount();
+        long misses = statistics.getQueryPlanCacheMissCount();
+
+        //값만 다른 검색은 같은 JPQL -> 쿼리 계획 캐시 hit
+        for (int age = 651; age < 660; age++) {
+            condition.setAgeGoe(age);
+            memberRepository.search(condition, PageRequest.of(0, 10));
+        }
+
+        Assertions.assertThat(memberSearch.shapeCount()).isEqualTo(shapes);
+        Assertions.assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(misses);
+    }
+
+    @Test
+    @Rollback
+    public void searchSortShapes() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(670);
+        memberRepository.search(condition, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "age")));
+        int shapes = memberSearch.shapeCount();
+
+        //같은 속성을 반복해도 앞의 정렬만 사용 -> 같은 JPQL
+        memberRepository.search(condition, PageRequest.of(0, 10,
+                Sort.by(Sort.Order.desc("age"), Sort.Order.asc("age"), Sort.Order.desc("age"))));
+        Assertions.assertThat(memberSearch.shapeCount()).isEqualTo(shapes);
+
+        //대소문자 무시, null 순서 지정은 허용하지 않음
+        Assertions.assertThatThrownBy(() -> memberRepository.search(condition,
+                        PageRequest.of(0, 10, Sort.by(Sort.Order.asc("username").ignoreCase()))))
+                .isInstanceOf(UnsupportedSortException.class);
+        Assertions.assertThatThrownBy(() -> memberRepository.search(condition,
+                        PageRequest.of(0, 10, Sort.by(Sort.Order.asc("username").nullsFirst()))))
+                .isInstanceOf(UnsupportedSortException.class);
+        Assertions.assertThat(memberSearch.shapeCount()).isEqualTo(shapes);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //범위마다 별도의 트랜잭션에서 조회 - 커밋된 회원만 보임
+    public void scanAll() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            members.add(new Member("scan" + i, 660 + i % 3));
+        }
+        List<Member> saved = memberRepository.saveAll(members);
+        committedMembers.addAll(saved);
+
+        //when
+        Map<Integer, Long> countByAge = memberRepository.scanAll(7, Collectors.filtering(
+                m -> m.getUsername().startsWith("scan"), Collectors.groupingBy(Member::getAge, Collectors.counting())));
+        List<Long> ids = memberRepository.scanAll(Collectors.mapping(Member::getId, Collectors.toList()));
+
+        //then
+        Assertions.assertThat(countByAge).containsOnly(
+                Assertions.entry(660, 34L), Assertions.entry(661, 33L), Assertions.entry(662, 33L));
+        //다른 테스트가 남긴 회원과 무관하게 이 테스트의 회원만 확인
+        Assertions.assertThat(ids).isSorted().doesNotHaveDuplicates()
+                .containsAll(saved.stream().map(Member::getId).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,197 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.metrics.StatementRecorder;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamSummary teamSummary;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    //NOT_SUPPORTED 테스트가 커밋한 팀, 회원 - 다른 테스트에 남지 않도록 테스트가 끝나면 삭제
+    private final List<Long> committedTeams = new ArrayList<>();
+    private final List<Long> committedMembers = new ArrayList<>();
+
+    @AfterEach
+    void deleteCommitted() {
+        if (committedTeams.isEmpty() && committedMembers.isEmpty()) {
+            return;
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        //리스너가 요약 테이블에서도 빼도록 엔티티로 삭제 (테스트 중 삭제된 회원은 제외)
+        tx.executeWithoutResult(status -> {
+            memberRepository.deleteAll(memberRepository.findAllById(committedMembers));
+            teamRepository.deleteAllById(committedTeams);
+        });
+        //회원이 모두 빠져서 0 으로 남은 요약 행
+        tx.executeWithoutResult(status -> em.createQuery("delete from TeamAgeSummary s where s.teamId in :teamIds")
+                .setParameter("teamIds", committedTeams)
+                .executeUpdate());
+    }
+
+    @Test
+    public void teamStats() {
+        Team teamA = teamRepository.save(new Team("statsA"));
+        Team teamB = teamRepository.save(new Team("statsB"));
+        Team empty = teamRepository.save(new Team("statsEmpty"));
+        em.persist(new Member("stats1", 10, teamA));
+        em.persist(new Member("stats2", 15, teamA));
+        em.persist(new Member("stats3", 27, teamA));
+        em.persist(new Member("stats4", 40, teamB));
+        em.flush();
+        em.clear();
+
+        //when : 쿼리 한번씩
+        List<TeamStats> stats;
+        List<AgeBucket> histogram;
+        try (StatementRecorder recorder = StatementRecorder.start()) {
+            stats = teamRepository.findTeamStats();
+            histogram = teamRepository.findAgeHistogram(10);
+            recorder.assertCount(2);
+        }
+
+        //then
+        List<TeamStats> mine = stats.stream()
+                .filter(s -> s.getTeamName().startsWith("stats"))
+                .collect(Collectors.toList());
+        assertThat(mine).extracting(TeamStats::getTeamName).containsExactly("statsA", "statsB", "statsEmpty");
+        assertThat(mine.get(0).getMemberCount()).isEqualTo(3);
+        assertThat(mine.get(0).getAvgAge()).isCloseTo(52 / 3.0, within(0.001));
+        assertThat(mine.get(0).getMinAge()).isEqualTo(10);
+        assertThat(mine.get(0).getMaxAge()).isEqualTo(27);
+        assertThat(mine.get(2).getMemberCount()).isZero();
+        assertThat(mine.get(2).getAvgAge()).isNull();
+
+        assertThat(histogram).filteredOn(bucket -> bucket.getTeamId().equals(teamA.getId()))
+                .extracting(AgeBucket::getAgeFrom, AgeBucket::getMemberCount)
+                .containsExactly(tuple(10, 2L), tuple(20, 1L));
+        assertThat(histogram).filteredOn(bucket -> bucket.getTeamId().equals(empty.getId())).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //요약 테이블은 커밋 직전에 반영
+    public void teamSummary() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team teamA = saveTeam(tx, "summaryA");
+        Team teamB = saveTeam(tx, "summaryB");
+        tx.executeWithoutResult(status -> {
+            persist(new Member("summary1", 7001, em.find(Team.class, teamA.getId())));
+            persist(new Member("summary2", 7002, em.find(Team.class, teamA.getId())));
+            persist(new Member("summary3", 7013, em.find(Team.class, teamB.getId())));
+            persist(new Member("summary4", 7014)); //팀이 없는 회원은 집계하지 않음
+        });
+
+        //롤백된 트랜잭션은 반영되지 않음
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("summary5", 7001, em.find(Team.class, teamA.getId())));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        //팀 이동, 나이 변경, 삭제
+        tx.executeWithoutResult(status -> {
+            memberRepository.findByUsername("summary1").get(0).changeTeam(em.find(Team.class, teamB.getId()));
+            memberRepository.findByUsername("summary2").get(0).setAge(7003);
+            em.remove(memberRepository.findByUsername("summary3").get(0));
+        });
+        Set<Long> mine = Set.of(teamA.getId(), teamB.getId());
+        assertThat(summaryStats(mine)).extracting(TeamStats::getTeamName, TeamStats::getMemberCount,
+                        TeamStats::getMinAge, TeamStats::getMaxAge)
+                .containsExactly(tuple("summaryA", 1L, 7003, 7003), tuple("summaryB", 1L, 7001, 7001));
+
+        //when : 엔티티 이벤트 없는 벌크 수정 -> 나이 범위를 다시 집계
+        memberRepository.bulkAgePlus(7001);
+
+        //then
+        List<TeamStats> summary = summaryStats(mine);
+        assertThat(summary).extracting(TeamStats::getTeamName, TeamStats::getMemberCount,
+                        TeamStats::getMinAge, TeamStats::getMaxAge)
+                .containsExactly(tuple("summaryA", 1L, 7004, 7004), tuple("summaryB", 1L, 7002, 7002));
+        assertThat(teamRepository.findAgeHistogramFromSummary(10))
+                .filteredOn(bucket -> bucket.getTeamId().equals(teamB.getId()))
+                .extracting(AgeBucket::getAgeFrom, AgeBucket::getMemberCount)
+                .containsExactly(tuple(7000, 1L));
+
+        //member 를 직접 집계한 결과와 같음
+        List<TeamStats> exact = teamRepository.findTeamStats().stream()
+                .filter(s -> mine.contains(s.getTeamId()))
+                .collect(Collectors.toList());
+        assertThat(summary).extracting(TeamStats::getMemberCount, TeamStats::getAvgAge, TeamStats::getMinAge, TeamStats::getMaxAge)
+                .isEqualTo(exact.stream()
+                        .map(s -> tuple(s.getMemberCount(), s.getAvgAge(), s.getMinAge(), s.getMaxAge()))
+                        .collect(Collectors.toList()));
+        assertThat(teamSummary.check()).filteredOn(m -> mine.contains(m.getTeamId())).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void teamSummaryChangedBeforeFlush() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team teamA = saveTeam(tx, "beforeFlushA");
+        Team teamB = saveTeam(tx, "beforeFlushB");
+
+        //when : 저장한 뒤 flush 전에 팀과 나이를 바꿈 -> flush 에서 insert 다음에 update 가 실행
+        tx.executeWithoutResult(status -> {
+            Member member = persist(new Member("beforeFlush", 7021, em.find(Team.class, teamA.getId())));
+            member.changeTeam(em.find(Team.class, teamB.getId()));
+            member.setAge(7022);
+        });
+
+        //then : 바뀐 (팀, 나이) 에만 한번 집계
+        Set<Long> mine = Set.of(teamA.getId(), teamB.getId());
+        assertThat(summaryStats(mine)).extracting(TeamStats::getTeamName, TeamStats::getMemberCount,
+                        TeamStats::getMinAge, TeamStats::getMaxAge)
+                .containsExactly(tuple("beforeFlushA", 0L, null, null), tuple("beforeFlushB", 1L, 7022, 7022));
+        assertThat(teamSummary.check()).filteredOn(m -> mine.contains(m.getTeamId())).isEmpty();
+    }
+
+    private Team saveTeam(TransactionTemplate tx, String name) {
+        Team team = tx.execute(status -> teamRepository.save(new Team(name)));
+        committedTeams.add(team.getId());
+        return team;
+    }
+
+    private Member persist(Member member) {
+        em.persist(member);
+        committedMembers.add(member.getId());
+        return member;
+    }
+
+    private List<TeamStats> summaryStats(Set<Long> teamIds) {
+        return teamRepository.findTeamStatsFromSummary().stream()
+                .filter(s -> teamIds.contains(s.getTeamId()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,67 @@
+package study.datajpa.schema;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void jpqlPatterns() {
+        List<AccessPattern> patterns = indexAdvisor.jpqlPatterns(
+                "select m from Member m left join m.team t where m.age = :age and t.name = :name and m.username like :p" +
+                        " order by m.username desc, m.id desc", "test");
+
+        assertThat(patterns).hasSize(2);
+        AccessPattern member = patterns.get(0);
+        assertThat(member.getTable()).isEqualTo("member");
+        assertThat(member.indexColumns()).containsExactly("age", "username");
+        assertThat(member.isCoveredBy(List.of("age", "username", "member_id"))).isTrue();
+        assertThat(member.isCoveredBy(List.of("username", "age"))).isFalse();
+        assertThat(patterns.get(1).indexColumns()).containsExactly("name");
+
+        //or 조건, 서브쿼리는 분석하지 않음
+        assertThat(indexAdvisor.jpqlPatterns("select m from Member m where m.age = :a or m.username = :u", "test")).isEmpty();
+    }
+
+    @Test
+    public void memberRepositoryMethodsAreIndexed() {
+        IndexReport report = indexAdvisor.advise(false);
+
+        assertThat(report.getMissingIndexes()).flatExtracting(IndexAdvice::getSources)
+                .noneMatch(source -> source.startsWith("MemberRepository."));
+    }
+
+    @Test
+    @Transactional
+    public void adviseExecutedQueries() {
+        em.persist(new Item("indexAdvisor"));
+        em.flush();
+        em.createQuery("select i from Item i where i.createdDate >= :from", Item.class)
+                .setParameter("from", LocalDateTime.now().minusDays(1))
+                .getResultList();
+
+        IndexReport report = indexAdvisor.advise(true);
+
+        assertThat(report.getMissingIndexes()).extracting(IndexAdvice::getDdl)
+                .contains("create index idx_item_created_date on item (created_date)");
+        assertThat(report.getFullScans()).extracting(FullScan::getSql)
+                .contains("select * from item where created_date >= ?");
+    }
+}
@@ -0,0 +1,111 @@
+package study.datajpa.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.retry.OptimisticLockRetry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 두 트랜잭션이 같은 회원을 수정 - 테스트 트랜잭션 없이 각 호출이 트랜잭션을 커밋
+ */
+@SpringBootTest
+class MemberServiceTest {
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    //커밋된 회원 - 다른 테스트에 남지 않도록 테스트가 끝나면 삭제
+    private final List<Member> committed = new ArrayList<>();
+
+    @AfterEach
+    void deleteCommitted() {
+        memberRepository.deleteAllById(committed.stream().map(Member::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void retryOnOptimisticLock() throws Exception {
+        Member saved = memberRepository.save(new Member("optimistic", 610));
+        committed.add(saved);
+        Long memberId = saved.getId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        //when
+        //첫 시도는 회원을 읽은 뒤 다른 트랜잭션이 먼저 커밋할 때까지 기다렸다가 수정 -> 버전 충돌 -> 다시 읽어서 성공
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Member> retried = executor.submit(() -> OptimisticLockRetry.of(5, 0, 0).execute(() ->
+                    tx.execute(status -> {
+                        Member member = memberRepository.findById(memberId).get();
+                        if (attempts.incrementAndGet() == 1) {
+                            read.countDown();
+                            await(written);
+                        }
+                        member.setAge(member.getAge() + 1);
+                        return member;
+                    })));
+            await(read);
+            memberService.addAge(memberId, 1);
+            written.countDown();
+            retried.get(1, TimeUnit.MINUTES);
+        } finally {
+            written.countDown();
+            executor.shutdownNow();
+        }
+
+        //then
+        //수정이 하나도 유실되지 않고, 수정할 때마다 버전이 올라감
+        Member member = memberRepository.findById(memberId).get();
+        Assertions.assertThat(attempts).hasValue(2);
+        Assertions.assertThat(member.getAge()).isEqualTo(612);
+        Assertions.assertThat(member.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void bulkUpdateIncrementsVersion() {
+        //벌크 수정이 이 테스트의 회원만 바꾸도록 다른 테스트가 쓰지 않는 나이 사용
+        int age = Integer.MAX_VALUE - 2;
+        Member member = memberRepository.save(new Member("versioned", age));
+        committed.add(member);
+
+        //when
+        memberRepository.bulkAgePlus(age);
+
+        //then
+        Member updated = memberRepository.findById(member.getId()).get();
+        Assertions.assertThat(updated.getAge()).isEqualTo(age + 1);
+        Assertions.assertThat(updated.getVersion()).isEqualTo(member.getVersion() + 1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}